@@ -0,0 +1,157 @@
+-- Compares the unpartitioned end_of_day table of V1 with the yearly partitioned, naturally keyed
+-- table of V2 and V3 at about 52 million rows: 20,000 tickers with ten years of weekdays each. See README.md.
+--
+--   psql -h localhost -U admin -d marketdata_bench -f local/benchmark/end_of_day_partitioning.sql
+
+\timing on
+\set ON_ERROR_STOP on
+
+CREATE SCHEMA IF NOT EXISTS eod_benchmark;
+SET search_path TO eod_benchmark;
+
+DROP TABLE IF EXISTS eod_flat;
+DROP TABLE IF EXISTS eod_partitioned;
+
+-- V1 layout
+CREATE TABLE eod_flat
+(
+    id       UUID           NOT NULL,
+    ticker   VARCHAR(255)   NOT NULL,
+    date     DATE           NOT NULL,
+    price    NUMERIC(19, 4) NOT NULL,
+    currency VARCHAR(255)   NOT NULL,
+    CONSTRAINT pk_eod_flat PRIMARY KEY (id)
+);
+
+-- V2 to V4 layout, yearly partitions without a default partition
+CREATE TABLE eod_partitioned
+(
+    ticker   VARCHAR(255)   NOT NULL,
+    date     DATE           NOT NULL,
+    price    NUMERIC(19, 4) NOT NULL,
+    currency VARCHAR(255)   NOT NULL,
+    CONSTRAINT pk_eod_partitioned PRIMARY KEY (ticker, date) INCLUDE (price)
+) PARTITION BY RANGE (date);
+
+DO
+$$
+    BEGIN
+        FOR year IN 2015..2025
+            LOOP
+                EXECUTE format(
+                        'CREATE TABLE eod_partitioned_%s PARTITION OF eod_partitioned FOR VALUES FROM (%L) TO (%L)',
+                        year,
+                        make_date(year, 1, 1),
+                        make_date(year + 1, 1, 1)
+                    );
+            END LOOP;
+    END
+$$;
+
+-- Loaded ticker by ticker, the order of a backfill
+INSERT INTO eod_flat (id, ticker, date, price, currency)
+SELECT gen_random_uuid(),
+       'T' || lpad(t::TEXT, 5, '0'),
+       d::DATE,
+       round((10 + random() * 490)::NUMERIC, 4),
+       'USD'
+FROM generate_series(1, 20000) AS t,
+     generate_series(DATE '2015-01-01', DATE '2024-12-31', INTERVAL '1 day') AS d
+WHERE extract(ISODOW FROM d) < 6;
+
+-- Loaded in date order, the order of the V2 migration and of the daily refresh
+INSERT INTO eod_partitioned (ticker, date, price, currency)
+SELECT ticker, date, price, currency
+FROM eod_flat
+ORDER BY date, ticker;
+
+CREATE UNIQUE INDEX uk_eod_flat_ticker_date ON eod_flat (ticker, date) INCLUDE (price);
+CREATE INDEX brin_eod_partitioned_date ON eod_partitioned USING brin (date) WITH (pages_per_range = 32);
+
+VACUUM ANALYZE eod_flat;
+VACUUM ANALYZE eod_partitioned;
+
+SELECT 'flat' AS layout,
+       pg_size_pretty(pg_table_size('eod_flat')) AS heap,
+       pg_size_pretty(pg_indexes_size('eod_flat')) AS indexes
+UNION ALL
+SELECT 'partitioned',
+       pg_size_pretty(sum(pg_table_size(relid))),
+       pg_size_pretty(sum(pg_indexes_size(relid)))
+FROM pg_partition_tree('eod_partitioned')
+WHERE isleaf;
+
+SELECT sum(pg_relation_size(i.indexrelid)) AS brin_bytes
+FROM pg_index i
+         JOIN pg_class c ON c.oid = i.indexrelid
+         JOIN pg_am am ON am.oid = c.relam
+WHERE am.amname = 'brin'
+  AND c.relnamespace = 'eod_benchmark'::REGNAMESPACE;
+
+-- Every query runs twice, the second run is the warm one to compare
+
+-- 1. Latest price of a ticker, V1 query against V2 query
+\echo 'latest price, flat, MAX subquery'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT *
+FROM eod_flat e
+WHERE e.ticker = 'T12345'
+  AND e.date = (SELECT max(e1.date) FROM eod_flat e1 WHERE e1.ticker = 'T12345');
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT *
+FROM eod_flat e
+WHERE e.ticker = 'T12345'
+  AND e.date = (SELECT max(e1.date) FROM eod_flat e1 WHERE e1.ticker = 'T12345');
+
+\echo 'latest price, partitioned, ORDER BY date DESC LIMIT 1'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT *
+FROM eod_partitioned
+WHERE ticker = 'T12345'
+ORDER BY date DESC
+LIMIT 1;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT *
+FROM eod_partitioned
+WHERE ticker = 'T12345'
+ORDER BY date DESC
+LIMIT 1;
+
+-- 2. History page of GET /v1/eod/{ticker}, bound parameters as sent by the driver
+PREPARE history_flat(VARCHAR, DATE, DATE, INTEGER) AS
+    SELECT date, price FROM eod_flat WHERE ticker = $1 AND date > $2 AND date <= $3 ORDER BY date LIMIT $4;
+PREPARE history_partitioned(VARCHAR, DATE, DATE, INTEGER) AS
+    SELECT date, price FROM eod_partitioned WHERE ticker = $1 AND date > $2 AND date <= $3 ORDER BY date LIMIT $4;
+
+\echo 'history page, flat'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE history_flat('T12345', '2023-06-30', '2024-12-31', 1000);
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE history_flat('T12345', '2023-06-30', '2024-12-31', 1000);
+
+\echo 'history page, partitioned'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE history_partitioned('T12345', '2023-06-30', '2024-12-31', 1000);
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) EXECUTE history_partitioned('T12345', '2023-06-30', '2024-12-31', 1000);
+
+-- 3. One trading week over all tickers, served by the BRIN index on the partitioned table
+\echo 'week over all tickers, flat'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT date, count(*), avg(price) FROM eod_flat WHERE date BETWEEN '2024-12-02' AND '2024-12-06' GROUP BY date;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT date, count(*), avg(price) FROM eod_flat WHERE date BETWEEN '2024-12-02' AND '2024-12-06' GROUP BY date;
+
+\echo 'week over all tickers, partitioned'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT date, count(*), avg(price) FROM eod_partitioned WHERE date BETWEEN '2024-12-02' AND '2024-12-06' GROUP BY date;
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT date, count(*), avg(price) FROM eod_partitioned WHERE date BETWEEN '2024-12-02' AND '2024-12-06' GROUP BY date;
+
+-- 4. Retention of the oldest year, rolled back to keep the data set
+\echo 'retention, flat'
+BEGIN;
+DELETE FROM eod_flat WHERE date < '2016-01-01';
+ROLLBACK;
+
+\echo 'retention, partitioned'
+BEGIN;
+ALTER TABLE eod_partitioned DETACH PARTITION eod_partitioned_2015;
+DROP TABLE eod_partitioned_2015;
+ROLLBACK;
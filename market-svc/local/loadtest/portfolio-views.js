@@ -0,0 +1,48 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+// Replays the reads behind a portfolio view: latest prices of all holdings, then the chart of one.
+// Run it once against the default profile and once with virtual-threads, see README.md.
+
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8020';
+const tickers = (__ENV.TICKERS || 'AAPL').split(',');
+const maxVus = parseInt(__ENV.MAX_VUS || '1000');
+
+export const options = {
+    scenarios: {
+        portfolioViews: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: Math.round(maxVus / 10) },
+                { duration: '1m', target: Math.round(maxVus / 2) },
+                { duration: '1m', target: maxVus },
+                { duration: '2m', target: maxVus },
+                { duration: '30s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{request:latest-prices}': ['p(95)<250'],
+        'http_req_duration{request:history}': ['p(95)<1000'],
+    },
+};
+
+export default function () {
+    const latest = http.post(
+        `${baseUrl}/v1/eod/latest-prices`,
+        JSON.stringify(tickers),
+        { headers: { 'Content-Type': 'application/json' }, tags: { request: 'latest-prices' } },
+    );
+    check(latest, { 'latest prices 200': (r) => r.status === 200 });
+
+    const ticker = tickers[Math.floor(Math.random() * tickers.length)];
+
+    const history = http.get(`${baseUrl}/v1/eod/${ticker}?limit=1000`, { tags: { request: 'history' } });
+    check(history, { 'history 200': (r) => r.status === 200 });
+
+    const series = http.get(`${baseUrl}/v1/eod/${ticker}/series`, { tags: { request: 'series' } });
+    check(series, { 'series 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,36 @@
+package com.valyalkin.market.benchmark;
+
+import com.valyalkin.market.MarketSvcApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application without the web server on an in-memory H2 database, for benchmarks
+ * that go through the Spring beans and the database. Beans declared by the given sources replace
+ * the application beans of the same name, e.g. to stub the market data provider.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(Class<?>... overrides) {
+        return new SpringApplicationBuilder(MarketSvcApplication.class)
+                .sources(overrides)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+                        "--spring.flyway.enabled=false",
+                        "--data.refresh.enabled=false",
+                        "--spring.main.allow-bean-definition-overriding=true",
+                        "--logging.level.com.valyalkin=WARN"
+                );
+    }
+}
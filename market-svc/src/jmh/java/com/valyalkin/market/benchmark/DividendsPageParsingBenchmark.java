@@ -0,0 +1,51 @@
+package com.valyalkin.market.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valyalkin.market.providers.marketstack.MarketStackResponseParser;
+import com.valyalkin.market.providers.marketstack.model.dividend.MarketStackDividendsData;
+import com.valyalkin.market.providers.model.Pagination;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a dividends page of the size requested by the provider, bound to the response model and
+ * streamed into a sink. Compare the two with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DividendsPageParsingBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private final MarketStackResponseParser responseParser = new MarketStackResponseParser();
+    private byte[] page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        page = MarketStackPages.dividendsPage("AAPL", LocalDate.of(2024, 11, 8), rows)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public MarketStackDividendsData bindPage() throws IOException {
+        return objectMapper.readValue(page, MarketStackDividendsData.class);
+    }
+
+    @Benchmark
+    public Pagination streamPage(Blackhole blackhole) throws IOException {
+        return responseParser.dividendsPage(new ByteArrayInputStream(page), blackhole::consume);
+    }
+}
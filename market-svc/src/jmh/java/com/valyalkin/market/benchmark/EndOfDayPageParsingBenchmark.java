@@ -0,0 +1,52 @@
+package com.valyalkin.market.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valyalkin.market.providers.marketstack.MarketStackResponseParser;
+import com.valyalkin.market.providers.marketstack.model.eod.MarketStackEndOfDayPrices;
+import com.valyalkin.market.providers.model.Pagination;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a whole end of day response page, bound to the response model as the RestClient does
+ * and streamed row by row into a sink by {@link MarketStackResponseParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EndOfDayPageParsingBenchmark {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private final MarketStackResponseParser responseParser = new MarketStackResponseParser();
+    private byte[] page;
+
+    @Setup
+    public void setUp() {
+        // Same settings as the mapper Spring Boot configures for the RestClient
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        page = MarketStackPages.endOfDayPage("AAPL", LocalDate.of(2024, 12, 16), rows)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public MarketStackEndOfDayPrices parsePage() throws IOException {
+        return objectMapper.readValue(page, MarketStackEndOfDayPrices.class);
+    }
+
+    @Benchmark
+    public Pagination streamPage(Blackhole blackhole) throws IOException {
+        return responseParser.endOfDayPage(new ByteArrayInputStream(page), blackhole::consume);
+    }
+}
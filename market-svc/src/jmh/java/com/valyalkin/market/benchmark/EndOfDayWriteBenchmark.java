@@ -0,0 +1,56 @@
+package com.valyalkin.market.benchmark;
+
+import com.valyalkin.market.eod.EndOfDayPriceBatchWriter;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores one fetched page the way {@code processEodData} does: prices are mapped to rows and
+ * upserted in JDBC batches. The same page is written every time, so this measures the update path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EndOfDayWriteBenchmark {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EndOfDayPriceBatchWriter writer;
+    private List<EndOfDayPrice> prices;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        writer = context.getBean(EndOfDayPriceBatchWriter.class);
+
+        final var lastDate = LocalDate.of(2024, 12, 16);
+        prices = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            prices.add(new EndOfDayPrice(
+                    BigDecimal.valueOf(10000 + i, 2),
+                    "AAPL",
+                    "XNAS",
+                    lastDate.minusDays(i)
+            ));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int writePage() {
+        return writer.write("AAPL", prices);
+    }
+}
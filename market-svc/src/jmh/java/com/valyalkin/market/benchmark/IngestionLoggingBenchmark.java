@@ -0,0 +1,136 @@
+package com.valyalkin.market.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.valyalkin.market.dto.IngestionResultDto;
+import com.valyalkin.market.eod.EndOfDayDataService;
+import com.valyalkin.market.providers.MarketDataProvider;
+import com.valyalkin.market.providers.model.Dividend;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.providers.model.Pagination;
+import com.valyalkin.market.providers.model.TickerDto;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ingests one page of a ticker through {@code EndOfDayDataService.processEodData}, with the
+ * provider stubbed to return the page from memory and the level of the service logger as a
+ * parameter: WARN logs nothing per page, INFO one summary line per page and DEBUG a line per row
+ * on top. Lines are formatted with the usual pattern and written to a discarding stream, so the
+ * console does not skew the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IngestionLoggingBenchmark {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    @Param({"WARN", "INFO", "DEBUG"})
+    public String level;
+
+    private ConfigurableApplicationContext context;
+    private EndOfDayDataService service;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(StubProviderConfiguration.class);
+        service = context.getBean(EndOfDayDataService.class);
+
+        final var loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        final var encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5level %pid --- [%thread] %logger{39} : %msg%n");
+        encoder.start();
+
+        final var appender = new OutputStreamAppender<ILoggingEvent>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        final Logger logger = loggerContext.getLogger(EndOfDayDataService.class);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        logger.setLevel(Level.toLevel(level));
+
+        final var lastDate = LocalDate.of(2024, 12, 16);
+        final List<EndOfDayPrice> prices = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            prices.add(new EndOfDayPrice(BigDecimal.valueOf(10000 + i, 2), "AAPL", "XNAS", lastDate.minusDays(i)));
+        }
+        context.getBean(PageProvider.class).prices = prices;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public IngestionResultDto storePage() {
+        // A single page, the same rows are upserted every time
+        return service.processEodData("AAPL");
+    }
+
+    /**
+     * Replaces the rate limited provider the service fetches its pages from.
+     */
+    static class StubProviderConfiguration {
+
+        @Bean
+        @Primary
+        PageProvider rateLimitedMarketDataProvider() {
+            return new PageProvider();
+        }
+    }
+
+    /**
+     * Answers every end of day request with the same single page.
+     */
+    static class PageProvider implements MarketDataProvider {
+
+        private volatile List<EndOfDayPrice> prices = List.of();
+
+        @Override
+        public Pagination endOfDayData(String tickers, LocalDate dateFrom, int offset, Consumer<EndOfDayPrice> sink) {
+            final var page = prices;
+            page.forEach(sink);
+            return new Pagination(page.size(), offset, page.size(), page.size());
+        }
+
+        @Override
+        public TickerDto tickerData(String ticker) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public EndOfDayBatchPage endOfDayData(List<String> tickers, LocalDate dateFrom, int offset) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Pagination dividends(String ticker, LocalDate dateFrom, int offset, Consumer<Dividend> sink) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.valyalkin.market.benchmark;
+
+import com.valyalkin.market.dto.LatestPriceDto;
+import com.valyalkin.market.eod.EndOfDayDataService;
+import com.valyalkin.market.eod.EndOfDayPriceBatchWriter;
+import com.valyalkin.market.eod.LatestPriceCache;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the latest price of a rotating ticker on H2, with the latest price cache either
+ * warm or cleared before every lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LatestPriceBenchmark {
+
+    @Param({"100"})
+    public int tickers;
+
+    @Param({"1000"})
+    public int days;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private EndOfDayDataService service;
+    private LatestPriceCache latestPriceCache;
+    private String[] symbols;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        service = context.getBean(EndOfDayDataService.class);
+        latestPriceCache = context.getBean(LatestPriceCache.class);
+
+        final var writer = context.getBean(EndOfDayPriceBatchWriter.class);
+        final var lastDate = LocalDate.of(2024, 12, 16);
+
+        symbols = new String[tickers];
+        for (int t = 0; t < tickers; t++) {
+            symbols[t] = "T" + t;
+            final var prices = new ArrayList<EndOfDayPrice>(days);
+            for (int d = 0; d < days; d++) {
+                prices.add(new EndOfDayPrice(BigDecimal.valueOf(10000 + d, 2), symbols[t], "XNAS", lastDate.minusDays(d)));
+            }
+            writer.write(symbols[t], prices);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LatestPriceDto latestPriceForTicker() {
+        if (!cached) {
+            latestPriceCache.clear();
+        }
+        final var symbol = symbols[next];
+        next = (next + 1) % symbols.length;
+        return service.latestPriceForTicker(symbol);
+    }
+}
@@ -0,0 +1,55 @@
+package com.valyalkin.market.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.valyalkin.market.providers.marketstack.config.CustomLocalDateDeserializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserializes an array of Marketstack timestamps, one operation per array, with the buffer based
+ * deserializer and the formatter based one it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocalDateDeserializerBenchmark {
+
+    @Param({"1000"})
+    public int dates;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CustomLocalDateDeserializer deserializer = new CustomLocalDateDeserializer();
+    private final PatternLocalDateDeserializer baseline = new PatternLocalDateDeserializer();
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        json = MarketStackPages.dates(LocalDate.of(2024, 12, 16), dates).getBytes();
+    }
+
+    @Benchmark
+    public void customLocalDateDeserializer(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                blackhole.consume(deserializer.deserialize(parser, null));
+            }
+        }
+    }
+
+    @Benchmark
+    public void patternLocalDateDeserializer(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                blackhole.consume(baseline.deserialize(parser, null));
+            }
+        }
+    }
+}
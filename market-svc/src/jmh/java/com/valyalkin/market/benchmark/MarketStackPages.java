@@ -0,0 +1,72 @@
+package com.valyalkin.market.benchmark;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Builds Marketstack end of day responses the way the api returns them, newest date first.
+ */
+final class MarketStackPages {
+
+    private MarketStackPages() {
+    }
+
+    static String endOfDayPage(String symbol, LocalDate lastDate, int rows) {
+        final var json = new StringBuilder(rows * 420);
+        json.append("{\"pagination\":{\"limit\":").append(rows)
+                .append(",\"offset\":0,\"count\":").append(rows)
+                .append(",\"total\":").append(rows).append("},\"data\":[");
+
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            final double close = 100 + (i % 250) * 0.37;
+            json.append(String.format(
+                    Locale.ROOT,
+                    "{\"open\":%.2f,\"high\":%.2f,\"low\":%.2f,\"close\":%.2f,\"volume\":41910580.0," +
+                            "\"adj_high\":%.4f,\"adj_low\":%.4f,\"adj_close\":%.4f,\"adj_open\":%.4f," +
+                            "\"adj_volume\":41910580.0,\"split_factor\":1.0,\"dividend\":0.0," +
+                            "\"symbol\":\"%s\",\"exchange\":\"XNAS\",\"date\":\"%sT00:00:00+0000\"}",
+                    close - 1, close + 1, close - 2, close,
+                    close + 1, close - 2, close, close - 1,
+                    symbol, lastDate.minusDays(i)
+            ));
+        }
+
+        return json.append("]}").toString();
+    }
+
+    static String dates(LocalDate lastDate, int count) {
+        final var json = new StringBuilder(count * 28).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(lastDate.minusDays(i)).append("T00:00:00+0000\"");
+        }
+        return json.append(']').toString();
+    }
+
+    static String dividendsPage(String symbol, LocalDate lastDate, int rows) {
+        final var json = new StringBuilder(rows * 80);
+        json.append("{\"pagination\":{\"limit\":").append(rows)
+                .append(",\"offset\":0,\"count\":").append(rows)
+                .append(",\"total\":").append(rows).append("},\"data\":[");
+
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(
+                    Locale.ROOT,
+                    "{\"date\":\"%s\",\"dividend\":%.2f,\"symbol\":\"%s\"}",
+                    lastDate.minusMonths(3L * i),
+                    0.2 + (i % 10) * 0.01,
+                    symbol
+            ));
+        }
+
+        return json.append("]}").toString();
+    }
+}
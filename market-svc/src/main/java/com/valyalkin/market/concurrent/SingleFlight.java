@@ -0,0 +1,179 @@
+package com.valyalkin.market.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key. The first caller runs the call, callers arriving
+ * while it is in flight wait for it and get the same result or exception. A caller arriving after
+ * it finished starts a new call.
+ * <p>
+ * A call can cover several keys at once, e.g. an ingestion of several tickers in one request. It
+ * only runs for the keys nobody else is running, and waits for the other keys in the calls already
+ * in flight. It runs its own keys before waiting, so two calls waiting for each other's keys
+ * cannot block each other.
+ * <p>
+ * Every call gets a shared state of its own, which the call reports to and its callers follow,
+ * e.g. the progress of an ingestion. A caller joins the state of each call it runs or waits for and
+ * leaves it once done. A caller waiting for a call of another one stops waiting and gets a
+ * {@link CancellationException} as soon as its cancellation completes, the call goes on for the
+ * others. The caller running the call on its thread cannot leave it, it returns the result once the
+ * call is done.
+ */
+public class SingleFlight<K, V, S> {
+
+    private final Supplier<S> sharedState;
+    private final Map<K, Flight<K, V, S>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Calls without a shared state.
+     */
+    public SingleFlight() {
+        this(() -> null);
+    }
+
+    public SingleFlight(Supplier<S> sharedState) {
+        this.sharedState = sharedState;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        return execute(key, Caller.none(), (shared) -> call.get());
+    }
+
+    public V execute(K key, Caller<S> caller, Function<S, V> call) {
+        return executeAll(
+                List.of(key),
+                caller,
+                (keys, shared) -> Collections.singletonMap(key, call.apply(shared))
+        ).get(key);
+    }
+
+    /**
+     * Runs the call for the keys that are not in flight yet and waits for the others. The call
+     * gets the keys it has to cover and returns a result for each of them. Results are returned
+     * for all keys, in their order.
+     */
+    public Map<K, V> executeAll(List<K> keys, Caller<S> caller, BiFunction<List<K>, S, Map<K, V>> call) {
+        final var own = new Flight<K, V, S>(sharedState.get());
+        final List<K> claimed = new ArrayList<>();
+        final Map<K, Flight<K, V, S>> joined = new LinkedHashMap<>();
+
+        for (K key : keys) {
+            final var running = inFlight.putIfAbsent(key, own);
+            if (running == null) {
+                claimed.add(key);
+            } else {
+                joined.put(key, running);
+            }
+        }
+
+        final Map<K, V> results = new LinkedHashMap<>();
+
+        if (!claimed.isEmpty()) {
+            caller.join(own.shared);
+            try {
+                final var result = call.apply(claimed, own.shared);
+                own.result.complete(result);
+                results.putAll(result);
+            } catch (RuntimeException | Error e) {
+                own.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                claimed.forEach((key) -> inFlight.remove(key, own));
+                caller.leave(own.shared);
+            }
+        }
+
+        // A call covering several of the keys is joined once
+        for (var running : new LinkedHashSet<>(joined.values())) {
+            final var result = running.await(caller);
+            joined.forEach((key, flight) -> {
+                if (flight == running) {
+                    results.put(key, result.get(key));
+                }
+            });
+        }
+
+        final Map<K, V> ordered = new LinkedHashMap<>();
+        keys.forEach((key) -> ordered.put(key, results.get(key)));
+        return ordered;
+    }
+
+    /**
+     * A caller of a call, joining the shared state of every call it runs or waits for.
+     */
+    public interface Caller<S> {
+
+        /**
+         * Completes once the caller stops waiting for calls run by other callers.
+         */
+        CompletionStage<?> cancellation();
+
+        void join(S shared);
+
+        void leave(S shared);
+
+        static <S> Caller<S> none() {
+            return new Caller<>() {
+                @Override
+                public CompletionStage<?> cancellation() {
+                    return new CompletableFuture<>();
+                }
+
+                @Override
+                public void join(S shared) {
+                }
+
+                @Override
+                public void leave(S shared) {
+                }
+            };
+        }
+    }
+
+    private static class Flight<K, V, S> {
+
+        private final CompletableFuture<Map<K, V>> result = new CompletableFuture<>();
+        private final S shared;
+
+        Flight(S shared) {
+            this.shared = shared;
+        }
+
+        Map<K, V> await(Caller<S> caller) {
+            caller.join(shared);
+            try {
+                final var waiting = result.copy();
+                caller.cancellation().whenComplete((ignored, error) -> waiting.cancel(false));
+                return waiting.get();
+            } catch (CancellationException e) {
+                throw new CancellationException("Stopped waiting for a shared call");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for a shared call");
+            } finally {
+                caller.leave(shared);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.valyalkin.market.config.exception;
+
+import java.time.Duration;
+
+/**
+ * The request is valid but the service cannot take it right now, e.g. because a queue is full.
+ * Clients are told to retry after {@link #retryAfter()}.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
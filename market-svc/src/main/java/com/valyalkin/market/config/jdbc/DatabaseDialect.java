@@ -0,0 +1,85 @@
+package com.valyalkin.market.config.jdbc;
+
+import com.valyalkin.market.config.exception.SystemException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The database behind the data source, detected once at startup, and the SQL that differs between
+ * PostgreSQL in production and H2 in tests. Any other database is rejected when the context starts.
+ */
+@Component
+public class DatabaseDialect {
+
+    public enum Database {
+        POSTGRESQL,
+        H2
+    }
+
+    private final Database database;
+
+    @Autowired
+    public DatabaseDialect(DataSource dataSource) {
+        this(detect(dataSource));
+    }
+
+    public DatabaseDialect(Database database) {
+        this.database = database;
+    }
+
+    public Database database() {
+        return database;
+    }
+
+    public boolean isPostgreSql() {
+        return database == Database.POSTGRESQL;
+    }
+
+    /**
+     * Statement inserting a row or updating its value columns when a row with the same key exists.
+     * Parameters are bound in the order of the key columns followed by the value columns.
+     */
+    public String upsertSql(String table, List<String> keyColumns, List<String> valueColumns) {
+        final var columns = String.join(", ", Stream.concat(keyColumns.stream(), valueColumns.stream()).toList());
+        final var parameters = String.join(", ", Collections.nCopies(keyColumns.size() + valueColumns.size(), "?"));
+        final var key = String.join(", ", keyColumns);
+
+        return switch (database) {
+            case POSTGRESQL -> "INSERT INTO " + table + " (" + columns + ") " +
+                    "VALUES (" + parameters + ") " +
+                    "ON CONFLICT (" + key + ") DO UPDATE SET " + valueColumns.stream()
+                    .map((column) -> column + " = EXCLUDED." + column)
+                    .collect(Collectors.joining(", "));
+            case H2 -> "MERGE INTO " + table + " (" + columns + ") " +
+                    "KEY (" + key + ") VALUES (" + parameters + ")";
+        };
+    }
+
+    private static Database detect(DataSource dataSource) {
+        final String databaseProductName;
+
+        try {
+            databaseProductName = JdbcUtils.extractDatabaseMetaData(
+                    dataSource,
+                    DatabaseMetaData::getDatabaseProductName
+            );
+        } catch (MetaDataAccessException e) {
+            throw new SystemException("Not able to detect the database: " + e.getMessage());
+        }
+
+        return switch (databaseProductName) {
+            case "PostgreSQL" -> Database.POSTGRESQL;
+            case "H2" -> Database.H2;
+            default -> throw new SystemException("Database " + databaseProductName + " is not supported");
+        };
+    }
+}
@@ -0,0 +1,361 @@
+package com.valyalkin.market.config.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.valyalkin.market.config.exception.SystemException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.TreeMap;
+
+/**
+ * Keeps successful GET responses of the market data provider on disk, so re-seeding a database
+ * replays them instead of spending quota. A response is keyed by the SHA-256 of its path and its
+ * sorted query parameters without the access key, and lives as long as the TTL of its class:
+ * ticker metadata, history or recent data. Only pages that can no longer change are history: a
+ * request with a {@code date_to} in the past, or a full {@code sort=ASC} page of end of day prices
+ * followed by at least one row per requested symbol. A date has at most one row per symbol, so the
+ * rows after such a page are of a later date and none of its own rows is dated today. Everything
+ * else is recent. Pages are classified from their {@code pagination} block and the request, the
+ * rows are skipped without being parsed.
+ * <p>
+ * Open-ended requests, newest row first, shift by one row per trading day, so their offsets do
+ * not address the same rows from one day to the next. Their first page is keyed by the day it was
+ * fetched and deeper pages are never cached: a replayed first page is then at most older than the
+ * fresh pages after it, which repeats rows that the upsert absorbs, but never skips any.
+ * <p>
+ * The class is decided once when the response is stored and kept in the file name. Files are
+ * written to a temporary file first and moved into place.
+ */
+@Component
+@ConditionalOnProperty(name = "data.marketstack.cache.enabled", havingValue = "true")
+public class DiskResponseCacheInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskResponseCacheInterceptor.class);
+    private static final String HISTORY = ".history";
+
+    private final Path directory;
+    private final Duration tickerTtl;
+    private final Duration historyTtl;
+    private final Duration recentTtl;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public DiskResponseCacheInterceptor(
+            @Value("${data.marketstack.cache.directory:.cache/marketstack}") Path directory,
+            @Value("${data.marketstack.cache.ticker-ttl:P7D}") Duration tickerTtl,
+            @Value("${data.marketstack.cache.history-ttl:P3650D}") Duration historyTtl,
+            @Value("${data.marketstack.cache.recent-ttl:PT1H}") Duration recentTtl
+    ) {
+        this.directory = directory;
+        this.tickerTtl = tickerTtl;
+        this.historyTtl = historyTtl;
+        this.recentTtl = recentTtl;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET) {
+            return execution.execute(request, body);
+        }
+
+        final var uri = request.getURI();
+
+        final var cached = lookup(uri);
+        if (cached != null) {
+            return new CachedResponse(cached);
+        }
+
+        final var response = execution.execute(request, body);
+        if (response.getStatusCode().value() != HttpStatus.OK.value()) {
+            return response;
+        }
+
+        final byte[] content;
+        try (response) {
+            content = response.getBody().readAllBytes();
+        }
+
+        store(uri, content);
+        return new CachedResponse(content);
+    }
+
+    /**
+     * Returns the cached body of a GET request, or null when it is not cached or expired. Used by
+     * clients that do not go through {@link org.springframework.web.client.RestClient}.
+     */
+    public byte[] lookup(URI uri) {
+        if (isTickers(uri)) {
+            return read(file(key(uri, null), ""), tickerTtl);
+        }
+
+        final var params = queryParams(uri);
+        if (isOpenEnded(params)) {
+            return isFirstPage(params) ? read(file(key(uri, LocalDate.now(ZoneOffset.UTC)), ""), recentTtl) : null;
+        }
+
+        final var key = key(uri, null);
+        final var history = read(file(key, HISTORY), historyTtl);
+        return history != null ? history : read(file(key, ""), recentTtl);
+    }
+
+    /**
+     * Caches the body of a successful GET request.
+     */
+    public void store(URI uri, byte[] content) {
+        if (isTickers(uri)) {
+            write(file(key(uri, null), ""), content);
+            return;
+        }
+
+        final var params = queryParams(uri);
+        if (isOpenEnded(params)) {
+            if (isFirstPage(params)) {
+                write(file(key(uri, LocalDate.now(ZoneOffset.UTC)), ""), content);
+            }
+            return;
+        }
+
+        write(file(key(uri, null), isHistory(uri, params, content) ? HISTORY : ""), content);
+    }
+
+    private Path file(String key, String suffix) {
+        return directory.resolve(key + suffix + ".json");
+    }
+
+    private static boolean isTickers(URI uri) {
+        final var path = uri.getPath();
+        return path != null && path.startsWith("/v1/tickers");
+    }
+
+    private static MultiValueMap<String, String> queryParams(URI uri) {
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+    }
+
+    /**
+     * Whether the rows behind the offsets of the request still move as the provider publishes
+     * new days: neither bounded by a past {@code date_to} nor read oldest first.
+     */
+    private static boolean isOpenEnded(MultiValueMap<String, String> params) {
+        return !hasPastDateTo(params) && !"ASC".equalsIgnoreCase(params.getFirst("sort"));
+    }
+
+    private static boolean isFirstPage(MultiValueMap<String, String> params) {
+        final var offset = params.getFirst("offset");
+        if (offset == null) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(offset) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasPastDateTo(MultiValueMap<String, String> params) {
+        final var dateTo = params.getFirst("date_to");
+        if (dateTo == null) {
+            return false;
+        }
+        try {
+            return LocalDate.parse(dateTo).isBefore(LocalDate.now(ZoneOffset.UTC));
+        } catch (DateTimeParseException e) {
+            // Not a plain date, classified by its rows
+            return false;
+        }
+    }
+
+    private boolean isHistory(URI uri, MultiValueMap<String, String> params, byte[] content) {
+        if (hasPastDateTo(params)) {
+            return true;
+        }
+
+        final var path = uri.getPath();
+        if (path == null || !path.startsWith("/v1/eod")) {
+            return false;
+        }
+
+        final Page page;
+        try {
+            page = page(content);
+        } catch (IOException e) {
+            logger.warn("Not able to classify cached response of {}: {}", path, e.getMessage());
+            return false;
+        }
+
+        // Rows dated today can still change, a page that is not full can still fill up
+        final var symbols = params.getFirst("symbols");
+        final int symbolCount = symbols == null ? 1 : symbols.split(",").length;
+        return page != null
+                && page.limit() > 0
+                && page.count() >= page.limit()
+                && page.total() - page.offset() - page.count() >= symbolCount;
+    }
+
+    /**
+     * Reads the {@code pagination} block of a response, skipping over everything else.
+     */
+    private Page page(byte[] content) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+
+                if ("pagination".equals(field) && value == JsonToken.START_OBJECT) {
+                    int limit = 0;
+                    int offset = 0;
+                    int count = 0;
+                    int total = 0;
+
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String name = parser.currentName();
+                        parser.nextToken();
+
+                        switch (name) {
+                            case "limit" -> limit = parser.getValueAsInt();
+                            case "offset" -> offset = parser.getValueAsInt();
+                            case "count" -> count = parser.getValueAsInt();
+                            case "total" -> total = parser.getValueAsInt();
+                            default -> parser.skipChildren();
+                        }
+                    }
+                    return new Page(limit, offset, count, total);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static String key(URI uri, LocalDate snapshot) {
+        final var params = new TreeMap<>(queryParams(uri));
+        params.remove("access_key");
+
+        final var key = new StringBuilder(uri.getPath() == null ? "" : uri.getPath());
+        params.forEach((name, values) -> key.append('&').append(name).append('=').append(String.join(",", values)));
+        if (snapshot != null) {
+            key.append('#').append(snapshot);
+        }
+
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SystemException("SHA-256 is not available: " + e.getMessage());
+        }
+    }
+
+    private static byte[] read(Path file, Duration ttl) {
+        try {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            final var writtenAt = Files.getLastModifiedTime(file).toInstant();
+            if (writtenAt.plus(ttl).isBefore(Instant.now())) {
+                return null;
+            }
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            logger.warn("Not able to read cached response {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path file, byte[] content) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, "response-", ".tmp");
+            Files.write(temporary, content);
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Not able to cache response {}: {}", file, e.getMessage());
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // Left behind in the cache directory, never read
+                }
+            }
+        }
+    }
+
+    private record Page(int limit, int offset, int count, int total) {
+    }
+
+    private static class CachedResponse implements ClientHttpResponse {
+
+        private final byte[] content;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        CachedResponse(byte[] content) {
+            this.content = content;
+            this.headers.setContentType(MediaType.APPLICATION_JSON);
+            this.headers.setContentLength(content.length);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.valyalkin.market.config.rest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Asks for gzip compressed responses and decodes them while they are read. The JDK client neither
+ * requests nor decodes compression on its own.
+ */
+public class GzipResponseInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String GZIP = "gzip";
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+
+        final var response = execution.execute(request, body);
+        if (!GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            return response;
+        }
+        return new DecodedResponse(response);
+    }
+
+    /**
+     * Decodes the body of a response read by a client that does not go through the interceptor
+     * chain, given its {@code Content-Encoding}.
+     */
+    public static InputStream decode(String contentEncoding, InputStream body) throws IOException {
+        return GZIP.equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body) : body;
+    }
+
+    private static class DecodedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final HttpHeaders headers = new HttpHeaders();
+        private InputStream body;
+
+        DecodedResponse(ClientHttpResponse response) {
+            this.response = response;
+            this.headers.putAll(response.getHeaders());
+            // Both describe the compressed body
+            this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new GZIPInputStream(response.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.valyalkin.market.config.rest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time until the response headers arrive, including setting up a connection, as a
+ * histogram per endpoint and status. The endpoint is the first two path segments, so ticker
+ * symbols and query parameters such as the access key never end up in tags.
+ */
+public class RequestLatencyInterceptor implements ClientHttpRequestInterceptor {
+
+    static final String METRIC_NAME = "marketstack.client.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestLatencyInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        final long start = System.nanoTime();
+        String status = "IO_ERROR";
+
+        try {
+            final var response = execution.execute(request, body);
+            status = String.valueOf(response.getStatusCode().value());
+            return response;
+        } finally {
+            record(request.getURI(), status, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a request made by a client that does not go through the interceptor chain.
+     */
+    public void record(URI uri, String status, long durationNanos) {
+        Timer.builder(METRIC_NAME)
+                .tag("endpoint", endpoint(uri))
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String endpoint(URI uri) {
+        final var path = uri.getPath();
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+
+        int slashes = 0;
+        for (int i = 1; i < path.length(); i++) {
+            if (path.charAt(i) == '/' && ++slashes == 2) {
+                return path.substring(0, i);
+            }
+        }
+        return path;
+    }
+}
@@ -1,14 +1,60 @@
 package com.valyalkin.market.config.rest;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Client for the market data provider on one shared JDK {@link HttpClient}. It speaks HTTP/2 where
+ * the provider supports it, multiplexing concurrent ingestion requests over a single connection,
+ * and falls back to HTTP/1.1 on connections it keeps alive and reuses. Responses are requested
+ * gzip compressed and decoded by {@link GzipResponseInterceptor}. The non-blocking provider sends
+ * its requests on the same client and records them with the same latency metrics.
+ */
 @Configuration
 public class RestClientConfiguration {
 
+    @Bean(destroyMethod = "shutdownNow")
+    public HttpClient marketStackHttpClient(
+            @Value("${data.marketstack.http.connect-timeout:PT5S}") Duration connectTimeout
+    ) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
     @Bean
-    public RestClient restClient() {
-        return RestClient.builder().build();
+    public RequestLatencyInterceptor requestLatencyInterceptor(MeterRegistry meterRegistry) {
+        return new RequestLatencyInterceptor(meterRegistry);
+    }
+
+    @Bean
+    public RestClient restClient(
+            HttpClient marketStackHttpClient,
+            @Value("${data.marketstack.http.read-timeout:PT30S}") Duration readTimeout,
+            RequestLatencyInterceptor requestLatencyInterceptor,
+            ObjectProvider<DiskResponseCacheInterceptor> responseCache
+    ) {
+        final var requestFactory = new JdkClientHttpRequestFactory(marketStackHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        final var builder = RestClient.builder()
+                .requestFactory(requestFactory);
+
+        // Cache hits are answered before the latency of the upstream call is measured
+        responseCache.ifAvailable(builder::requestInterceptor);
+
+        return builder
+                .requestInterceptor(requestLatencyInterceptor)
+                .requestInterceptor(new GzipResponseInterceptor())
+                .build();
     }
 }
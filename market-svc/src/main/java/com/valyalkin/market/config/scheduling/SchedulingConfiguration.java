@@ -0,0 +1,12 @@
+package com.valyalkin.market.config.scheduling;
+
+import com.valyalkin.market.refresh.RefreshProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RefreshProperties.class)
+public class SchedulingConfiguration {
+}
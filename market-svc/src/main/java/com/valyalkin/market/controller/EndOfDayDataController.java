@@ -1,11 +1,18 @@
 package com.valyalkin.market.controller;
 
+import com.valyalkin.market.dto.CacheStatsDto;
+import com.valyalkin.market.dto.IngestionResultDto;
 import com.valyalkin.market.dto.LatestPriceDto;
+import com.valyalkin.market.dto.PriceSeriesDto;
 import com.valyalkin.market.eod.EndOfDayDataService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,10 +27,9 @@ public class EndOfDayDataController {
 
     @PostMapping("/process")
     @ResponseStatus(code = HttpStatus.CREATED)
-    public void process(@RequestParam String tickers) {
+    public List<IngestionResultDto> process(@RequestParam String tickers) {
 
-        final List<String> tickersList = Arrays.asList(tickers.toUpperCase().split(","));
-        tickersList.forEach(endOfDayDataService::processEodData);
+        return endOfDayDataService.processEodData(TickersParameter.parse(tickers));
     }
 
     @GetMapping("/latest-price/{ticker}")
@@ -31,4 +37,42 @@ public class EndOfDayDataController {
     public LatestPriceDto latestPrice(@PathVariable String ticker) {
         return endOfDayDataService.latestPriceForTicker(ticker);
     }
+
+    @GetMapping("/{ticker}")
+    public ResponseEntity<StreamingResponseBody> history(
+            @PathVariable String ticker,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate after,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        // Validated before the response is committed, rows are streamed afterwards
+        final var query = endOfDayDataService.priceHistoryQuery(ticker, from, to, after, limit);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body((outputStream) -> endOfDayDataService.writePriceHistory(query, outputStream));
+    }
+
+    @GetMapping("/{ticker}/series")
+    @ResponseStatus(code = HttpStatus.OK)
+    public PriceSeriesDto series(
+            @PathVariable String ticker,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return endOfDayDataService.priceSeries(ticker, from, to);
+    }
+
+    @PostMapping("/latest-prices")
+    @ResponseStatus(code = HttpStatus.OK)
+    public List<LatestPriceDto> latestPrices(@RequestBody List<String> tickers) {
+        return endOfDayDataService.latestPricesForTickers(tickers.stream().distinct().toList());
+    }
+
+    @GetMapping("/cache/stats")
+    @ResponseStatus(code = HttpStatus.OK)
+    public CacheStatsDto cacheStats() {
+        return endOfDayDataService.latestPriceCacheStats();
+    }
 }
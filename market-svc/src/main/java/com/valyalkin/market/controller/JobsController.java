@@ -0,0 +1,44 @@
+package com.valyalkin.market.controller;
+
+import com.valyalkin.market.dto.JobDto;
+import com.valyalkin.market.jobs.JobService;
+import com.valyalkin.market.jobs.JobType;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/v1/jobs")
+public class JobsController {
+
+    private final JobService jobService;
+
+    public JobsController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @PostMapping("/eod")
+    @ResponseStatus(code = HttpStatus.ACCEPTED)
+    public JobDto submitEod(@RequestParam String tickers) {
+        return jobService.submit(JobType.EOD, TickersParameter.parse(tickers));
+    }
+
+    @PostMapping("/dividends")
+    @ResponseStatus(code = HttpStatus.ACCEPTED)
+    public JobDto submitDividends(@RequestParam String tickers) {
+        return jobService.submit(JobType.DIVIDENDS, TickersParameter.parse(tickers));
+    }
+
+    @GetMapping("/{id}")
+    @ResponseStatus(code = HttpStatus.OK)
+    public JobDto job(@PathVariable UUID id) {
+        return jobService.get(id);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(code = HttpStatus.OK)
+    public JobDto cancel(@PathVariable UUID id) {
+        return jobService.cancel(id);
+    }
+}
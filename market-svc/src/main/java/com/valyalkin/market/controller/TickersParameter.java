@@ -0,0 +1,21 @@
+package com.valyalkin.market.controller;
+
+import java.util.Arrays;
+import java.util.List;
+
+final class TickersParameter {
+
+    private TickersParameter() {
+    }
+
+    /**
+     * Splits a comma separated list of tickers, dropping blanks and duplicates.
+     */
+    static List<String> parse(String tickers) {
+        return Arrays.stream(tickers.toUpperCase().split(","))
+                .map(String::trim)
+                .filter((ticker) -> !ticker.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
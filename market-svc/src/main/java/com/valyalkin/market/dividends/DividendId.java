@@ -0,0 +1,25 @@
+package com.valyalkin.market.dividends;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Primary key of a dividend, one row per ticker and record date.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+@Getter
+public class DividendId implements Serializable {
+
+    private String ticker;
+
+    private LocalDate recordDate;
+}
@@ -0,0 +1,59 @@
+package com.valyalkin.market.dividends;
+
+import com.valyalkin.market.config.jdbc.DatabaseDialect;
+import com.valyalkin.market.providers.model.Dividend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bulk write path for dividends. With the natural key as identifier, saving entities through the
+ * JPA repository merges every row, which loads it by id first. Rows are upserted on
+ * (ticker, record_date) in JDBC batches instead, without reading them.
+ */
+@Component
+public class DividendsBatchWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final String upsertSql;
+
+    public DividendsBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            DatabaseDialect databaseDialect,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+            @Value("${data.ingestion.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.upsertSql = databaseDialect.upsertSql(
+                schema + ".dividends",
+                List.of("ticker", "record_date"),
+                List.of("dividend")
+        );
+    }
+
+    /**
+     * Inserts or updates the given dividends and returns the number of rows written.
+     */
+    public int write(List<Dividend> dividends) {
+        if (dividends.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(
+                upsertSql,
+                dividends,
+                batchSize,
+                (ps, dividend) -> {
+                    ps.setString(1, dividend.ticker());
+                    ps.setObject(2, dividend.date());
+                    ps.setBigDecimal(3, dividend.dividend());
+                }
+        );
+
+        return dividends.size();
+    }
+}
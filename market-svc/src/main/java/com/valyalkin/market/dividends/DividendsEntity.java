@@ -8,10 +8,10 @@ import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.UUID;
 
 @Entity
 @Table(name = "dividends")
+@IdClass(DividendId.class)
 @NoArgsConstructor
 @ToString
 @Getter
@@ -19,15 +19,13 @@ import java.util.UUID;
 public class DividendsEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    private UUID id;
-
     @Column(name = "ticker", nullable = false)
     private String ticker;
 
+    @Id
     @Column(nullable = false)
     private LocalDate recordDate;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 19, scale = 6)
     private BigDecimal dividend;
 }
@@ -6,9 +6,8 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.UUID;
 
-public interface DividendsRepository extends JpaRepository<DividendsEntity, UUID> {
+public interface DividendsRepository extends JpaRepository<DividendsEntity, DividendId> {
 
     @Query(
             "SELECT MAX(e.recordDate) " +
@@ -1,73 +1,193 @@
 package com.valyalkin.market.dividends;
 
+import com.valyalkin.market.concurrent.SingleFlight;
 import com.valyalkin.market.config.exception.NotFoundException;
 import com.valyalkin.market.dto.DividendDto;
 import com.valyalkin.market.dto.DividendsDto;
-import com.valyalkin.market.providers.model.Dividend;
+import com.valyalkin.market.dto.IngestionResultDto;
+import com.valyalkin.market.ingestion.Dataset;
+import com.valyalkin.market.ingestion.IngestionCheckpoints;
+import com.valyalkin.market.ingestion.IngestionExecutor;
+import com.valyalkin.market.ingestion.IngestionMetrics;
+import com.valyalkin.market.ingestion.IngestionProgress;
+import com.valyalkin.market.ingestion.SharedIngestionProgress;
 import com.valyalkin.market.providers.MarketDataProvider;
+import com.valyalkin.market.providers.model.Dividend;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 @Service
 public class DividendsService {
 
     private final DividendsRepository dividendsRepository;
+    private final DividendsBatchWriter dividendsBatchWriter;
     private final MarketDataProvider marketDataProvider;
-
-    public DividendsService(DividendsRepository dividendsRepository, MarketDataProvider marketDataProvider) {
+    private final IngestionCheckpoints ingestionCheckpoints;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestionExecutor ingestionExecutor;
+    private final IngestionMetrics ingestionMetrics;
+    private final SingleFlight<String, IngestionResultDto, SharedIngestionProgress> tickerIngestions =
+            new SingleFlight<>(SharedIngestionProgress::new);
+
+    public DividendsService(
+            DividendsRepository dividendsRepository,
+            DividendsBatchWriter dividendsBatchWriter,
+            MarketDataProvider marketDataProvider,
+            IngestionCheckpoints ingestionCheckpoints,
+            TransactionTemplate transactionTemplate,
+            IngestionExecutor ingestionExecutor,
+            IngestionMetrics ingestionMetrics
+    ) {
         this.dividendsRepository = dividendsRepository;
+        this.dividendsBatchWriter = dividendsBatchWriter;
         this.marketDataProvider = marketDataProvider;
+        this.ingestionCheckpoints = ingestionCheckpoints;
+        this.transactionTemplate = transactionTemplate;
+        this.ingestionExecutor = ingestionExecutor;
+        this.ingestionMetrics = ingestionMetrics;
     }
 
     private @Value("${data.date-from}") LocalDate date;
 
     private static Logger logger = LoggerFactory.getLogger(DividendsService.class);
 
-    public void processDividends(String ticker) {
-        final var latestDate = dividendsRepository.findLatestDividendDateForTicker(ticker);
+    public List<IngestionResultDto> processDividends(List<String> tickers, IngestionProgress progress) {
+        return ingestionExecutor.invokeAll(
+                tickers,
+                (ticker) -> {
+                    final long start = System.nanoTime();
+                    try {
+                        return processDividends(ticker, progress);
+                    } catch (CancellationException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to process dividends for {}", ticker, e);
+                        return new IngestionResultDto(ticker, 0, 0, (System.nanoTime() - start) / 1_000_000, e.getMessage());
+                    }
+                }
+        );
+    }
+
+    public IngestionResultDto processDividends(String ticker) {
+        return processDividends(ticker, IngestionProgress.NONE);
+    }
+
+    /**
+     * Fetches and stores the missing dividends of a ticker. Concurrent calls for the same ticker
+     * share one ingestion, so the rows are inserted once, each following it with its own progress.
+     */
+    public IngestionResultDto processDividends(String ticker, IngestionProgress progress) {
+        return tickerIngestions.execute(
+                ticker,
+                SharedIngestionProgress.caller(progress),
+                (shared) -> ingestTicker(ticker, shared)
+        );
+    }
+
+    private IngestionResultDto ingestTicker(String ticker, IngestionProgress progress) {
+        final long start = System.nanoTime();
+        final var checkpoint = ingestionCheckpoints.find(Dataset.DIVIDENDS, ticker);
 
         final LocalDate dateFrom;
+        int offset;
 
-        if (latestDate == null) {
-            dateFrom = date;
+        if (checkpoint != null) {
+            // Resume an interrupted backfill from the last committed page
+            dateFrom = checkpoint.getDateFrom();
+            offset = checkpoint.getNextOffset();
+            logger.info("Resuming dividends for {} from {} at offset {}", ticker, dateFrom, offset);
         } else {
-            dateFrom = latestDate.plusDays(1);
+            final var latestDate = dividendsRepository.findLatestDividendDateForTicker(ticker);
+
+            if (latestDate == null) {
+                dateFrom = date;
+            } else {
+                dateFrom = latestDate.plusDays(1);
+            }
+            offset = 0;
         }
 
-        final var dividendsPage = marketDataProvider.dividends(ticker, dateFrom, 0);
+        int rowsInserted = 0;
+        int pagesFetched = 0;
+        boolean lastPage;
 
-        final List<Dividend> list = new ArrayList<>(dividendsPage.dividends());
+        do {
+            if (progress.isCancelled()) {
+                throw new CancellationException(String.format("Dividends processing cancelled for %s", ticker));
+            }
 
-        final var pagination = dividendsPage.pagination();
-        final int numCalls = (int) Math.ceil((double) pagination.total() / pagination.limit());
+            final List<Dividend> dividends = new ArrayList<>();
+            final var pagination = marketDataProvider.dividends(ticker, dateFrom, offset, dividends::add);
+            pagesFetched++;
+            final int nextOffset = offset + pagination.limit();
 
-        if (numCalls != 0) {
-            for (int i = 1; i <= numCalls; i++) {
-                final var offset = i * pagination.limit();
-                list.addAll(marketDataProvider.dividends(
-                        ticker,
-                        dateFrom,
-                        offset
-                ).dividends()
-                );
+            if (pagesFetched == 1) {
+                progress.pagesDiscovered(IngestionProgress.remainingPages(offset, pagination.limit(), pagination.total()));
             }
-        }
 
-        list.forEach(
-                (dividend -> {
-                    logger.info("saving {}", dividend);
-                    final var entity = new DividendsEntity();
-                    entity.setDividend(dividend.dividend());
-                    entity.setRecordDate(dividend.date());
-                    entity.setTicker(dividend.ticker());
-                    dividendsRepository.save(entity);
-                })
+            lastPage = dividends.isEmpty() || pagination.limit() <= 0 || nextOffset >= pagination.total();
+            final boolean completed = lastPage;
+
+            final long pageStart = System.nanoTime();
+            ingestionMetrics.timeWrite(
+                    Dataset.DIVIDENDS,
+                    () -> transactionTemplate.executeWithoutResult(
+                            (status) -> {
+                                if (logger.isDebugEnabled()) {
+                                    dividends.forEach((dividend) -> logger.debug("saving {}", dividend));
+                                }
+                                dividendsBatchWriter.write(dividends);
+
+                                if (completed) {
+                                    ingestionCheckpoints.complete(Dataset.DIVIDENDS, ticker);
+                                } else {
+                                    ingestionCheckpoints.advance(Dataset.DIVIDENDS, ticker, dateFrom, nextOffset, pagination.total());
+                                }
+                            }
+                    )
+            );
+
+            logger.info(
+                    "Stored {} dividends for {} dated {} to {}, {} of {} fetched, in {} ms",
+                    dividends.size(),
+                    ticker,
+                    dividends.stream().map(Dividend::date).min(LocalDate::compareTo).orElse(null),
+                    dividends.stream().map(Dividend::date).max(LocalDate::compareTo).orElse(null),
+                    Math.min(nextOffset, pagination.total()),
+                    pagination.total(),
+                    (System.nanoTime() - pageStart) / 1_000_000
+            );
+
+            ingestionMetrics.pageStored(Dataset.DIVIDENDS, dividends.size());
+            progress.pageStored(dividends.size());
+            rowsInserted += dividends.size();
+            offset = nextOffset;
+        } while (!lastPage);
+
+        final long durationMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info(
+                "Finished dividends for {} from {}: {} rows in {} pages in {} ms",
+                ticker,
+                dateFrom,
+                rowsInserted,
+                pagesFetched,
+                durationMs
+        );
+
+        return new IngestionResultDto(
+                ticker,
+                rowsInserted,
+                pagesFetched,
+                durationMs,
+                null
         );
     }
 
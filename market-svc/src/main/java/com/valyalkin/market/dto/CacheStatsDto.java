@@ -0,0 +1,12 @@
+package com.valyalkin.market.dto;
+
+public record CacheStatsDto(
+        String name,
+        int size,
+        int maxSize,
+        long hits,
+        long misses,
+        double hitRatio,
+        long evictions
+) {
+}
@@ -0,0 +1,10 @@
+package com.valyalkin.market.dto;
+
+public record IngestionResultDto(
+        String ticker,
+        int rowsInserted,
+        int pagesFetched,
+        long durationMs,
+        String error
+) {
+}
@@ -0,0 +1,22 @@
+package com.valyalkin.market.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record JobDto(
+        UUID id,
+        String type,
+        String status,
+        List<String> tickers,
+        int pagesDone,
+        int pagesTotal,
+        long rowsWritten,
+        double rowsPerSecond,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant finishedAt,
+        String error,
+        List<IngestionResultDto> results
+) {
+}
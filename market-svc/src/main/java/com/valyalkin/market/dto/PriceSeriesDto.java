@@ -0,0 +1,11 @@
+package com.valyalkin.market.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record PriceSeriesDto(
+        String ticker,
+        List<LocalDate> dates,
+        double[] closes
+) {
+}
@@ -1,86 +1,642 @@
 package com.valyalkin.market.eod;
 
+import com.valyalkin.market.concurrent.SingleFlight;
+import com.valyalkin.market.config.exception.BusinessException;
 import com.valyalkin.market.config.exception.NotFoundException;
+import com.valyalkin.market.dto.CacheStatsDto;
+import com.valyalkin.market.dto.IngestionResultDto;
 import com.valyalkin.market.dto.LatestPriceDto;
-import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.dto.PriceSeriesDto;
+import com.valyalkin.market.ingestion.Dataset;
+import com.valyalkin.market.ingestion.IngestionCheckpoints;
+import com.valyalkin.market.ingestion.IngestionExecutor;
+import com.valyalkin.market.ingestion.IngestionMetrics;
+import com.valyalkin.market.ingestion.IngestionProgress;
+import com.valyalkin.market.ingestion.SharedIngestionProgress;
+import com.valyalkin.market.providers.AsyncMarketDataProvider;
 import com.valyalkin.market.providers.MarketDataProvider;
+import com.valyalkin.market.providers.model.EndOfDatePage;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class EndOfDayDataService {
 
     private final EndOfDayPriceDataRepository endOfDayPriceDataRepository;
     private final MarketDataProvider marketDataProvider;
+    private final AsyncMarketDataProvider asyncMarketDataProvider;
+    private final EndOfDayPriceBatchWriter endOfDayPriceBatchWriter;
+    private final EndOfDayPartitions endOfDayPartitions;
+    private final IngestionCheckpoints ingestionCheckpoints;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestionExecutor ingestionExecutor;
+    private final LatestPriceCache latestPriceCache;
+    private final EndOfDayPriceHistoryReader endOfDayPriceHistoryReader;
+    private final EndOfDayLatestPriceReader endOfDayLatestPriceReader;
+    private final PriceSeriesStore priceSeriesStore;
+    private final IngestionMetrics ingestionMetrics;
+    // Keyed by ticker for single tickers and batches alike, so both kinds coalesce with each other
+    private final SingleFlight<String, IngestionResultDto, SharedIngestionProgress> tickerIngestions =
+            new SingleFlight<>(SharedIngestionProgress::new);
 
-    public EndOfDayDataService(EndOfDayPriceDataRepository endOfDayPriceDataRepository, MarketDataProvider marketDataProvider) {
+    public EndOfDayDataService(
+            EndOfDayPriceDataRepository endOfDayPriceDataRepository,
+            MarketDataProvider marketDataProvider,
+            AsyncMarketDataProvider asyncMarketDataProvider,
+            EndOfDayPriceBatchWriter endOfDayPriceBatchWriter,
+            EndOfDayPartitions endOfDayPartitions,
+            IngestionCheckpoints ingestionCheckpoints,
+            TransactionTemplate transactionTemplate,
+            IngestionExecutor ingestionExecutor,
+            LatestPriceCache latestPriceCache,
+            EndOfDayPriceHistoryReader endOfDayPriceHistoryReader,
+            EndOfDayLatestPriceReader endOfDayLatestPriceReader,
+            PriceSeriesStore priceSeriesStore,
+            IngestionMetrics ingestionMetrics
+    ) {
         this.endOfDayPriceDataRepository = endOfDayPriceDataRepository;
         this.marketDataProvider = marketDataProvider;
+        this.asyncMarketDataProvider = asyncMarketDataProvider;
+        this.endOfDayPriceBatchWriter = endOfDayPriceBatchWriter;
+        this.endOfDayPartitions = endOfDayPartitions;
+        this.ingestionCheckpoints = ingestionCheckpoints;
+        this.transactionTemplate = transactionTemplate;
+        this.ingestionExecutor = ingestionExecutor;
+        this.latestPriceCache = latestPriceCache;
+        this.endOfDayPriceHistoryReader = endOfDayPriceHistoryReader;
+        this.endOfDayLatestPriceReader = endOfDayLatestPriceReader;
+        this.priceSeriesStore = priceSeriesStore;
+        this.ingestionMetrics = ingestionMetrics;
     }
 
     private @Value("${data.date-from}") LocalDate date;
 
+    private @Value("${data.ingestion.symbols-per-request:50}") int symbolsPerRequest;
+
+    private @Value("${data.ingestion.prefetch-pages:4}") int prefetchPages;
+
+    private @Value("${data.history.max-page-size:10000}") int maxHistoryPageSize;
+
     private static Logger logger = LoggerFactory.getLogger(EndOfDayDataService.class);
 
-    public void processEodData(String ticker) {
+    public List<IngestionResultDto> processEodData(List<String> tickers) {
+        return processEodData(tickers, IngestionProgress.NONE);
+    }
+
+    public List<IngestionResultDto> processEodData(List<String> tickers, IngestionProgress progress) {
+        if (tickers.isEmpty()) {
+            return List.of();
+        }
+
+        // Tickers with an interrupted backfill continue on their own from the checkpoint
+        final Set<String> pending = ingestionCheckpoints.pending(Dataset.EOD, tickers);
+
+        final Map<String, LocalDate> latestDates = new HashMap<>();
+        endOfDayPriceDataRepository.findLatestPriceDatesForTickers(tickers).forEach(
+                (latest) -> latestDates.put(latest.getTicker(), latest.getLatestDate())
+        );
+
+        final List<EodBatch> batches = new ArrayList<>();
+        pending.forEach((ticker) -> batches.add(new EodBatch(List.of(ticker), null)));
+
+        // Tickers starting from the same date are requested together, a handful of symbols per call
+        final Map<LocalDate, List<String>> tickersByDateFrom = tickers.stream()
+                .filter((ticker) -> !pending.contains(ticker))
+                .collect(Collectors.groupingBy(
+                        (ticker) -> {
+                            final var latestDate = latestDates.get(ticker);
+                            return latestDate == null ? date : latestDate.plusDays(1);
+                        },
+                        LinkedHashMap::new,
+                        Collectors.toList()
+                ));
+
+        tickersByDateFrom.forEach(
+                (dateFrom, group) -> {
+                    for (int i = 0; i < group.size(); i += symbolsPerRequest) {
+                        batches.add(new EodBatch(
+                                group.subList(i, Math.min(i + symbolsPerRequest, group.size())),
+                                dateFrom
+                        ));
+                    }
+                }
+        );
+
+        final Map<String, IngestionResultDto> results = new HashMap<>();
+        ingestionExecutor.invokeAll(batches, (batch) -> processEodBatch(batch, progress)).forEach(
+                (batchResults) -> batchResults.forEach((result) -> results.put(result.ticker(), result))
+        );
+
+        return tickers.stream().map(results::get).toList();
+    }
+
+    private List<IngestionResultDto> processEodBatch(EodBatch batch, IngestionProgress progress) {
+        final long start = System.nanoTime();
+
+        try {
+            if (batch.tickers().size() == 1) {
+                return List.of(processEodData(batch.tickers().getFirst(), progress));
+            }
+            // Tickers already being ingested on their own or in another batch are waited for
+            return List.copyOf(tickerIngestions.executeAll(
+                    batch.tickers(),
+                    SharedIngestionProgress.caller(progress),
+                    (tickers, shared) -> processEodData(tickers, batch.dateFrom(), shared).stream().collect(
+                            Collectors.toMap(IngestionResultDto::ticker, Function.identity())
+                    )
+            ).values());
+        } catch (CancellationException e) {
+            // A cancelled ingestion is not a failure of its tickers, the caller stops as a whole
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Failed to process end of day data for {}", batch.tickers(), e);
+            final long durationMs = (System.nanoTime() - start) / 1_000_000;
+            return batch.tickers().stream()
+                    .map((ticker) -> new IngestionResultDto(ticker, 0, 0, durationMs, e.getMessage()))
+                    .toList();
+        }
+    }
+
+    /**
+     * Fetches prices for several tickers sharing the same start date with one chain of paged calls
+     * and stores the rows of every page under their own ticker. Like a single ticker, the pages
+     * after the first are requested ahead in a bounded window and stored strictly in order, which
+     * keeps the latest stored date of every ticker a valid resume point.
+     */
+    private List<IngestionResultDto> processEodData(List<String> tickers, LocalDate dateFrom, IngestionProgress progress) {
+        final long start = System.nanoTime();
+        final Map<String, Integer> rowsInserted = new HashMap<>();
 
-        final var latestDate = endOfDayPriceDataRepository.findLatestPriceDateForTicker(ticker);
+        int pagesFetched = 0;
+        int offset = 0;
+
+        checkCancelled(progress, tickers);
+        var eodPage = marketDataProvider.endOfDayData(tickers, dateFrom, offset);
+        final var pagination = eodPage.pagination();
+        final int limit = pagination.limit();
+        final int total = pagination.total();
+
+        progress.pagesDiscovered(IngestionProgress.remainingPages(offset, limit, total));
+
+        final Deque<PrefetchedPage<EndOfDayBatchPage>> window = new ArrayDeque<>();
+        int nextToFetch = offset + limit;
+
+        try {
+            while (true) {
+                pagesFetched++;
+                final boolean lastPage = eodPage.rows() == 0 || limit <= 0 || offset + limit >= total;
+
+                if (!lastPage) {
+                    while (window.size() < Math.max(1, prefetchPages) && nextToFetch < total) {
+                        final int prefetchOffset = nextToFetch;
+                        window.add(new PrefetchedPage<>(
+                                prefetchOffset,
+                                asyncMarketDataProvider.endOfDayData(tickers, dateFrom, prefetchOffset)
+                        ));
+                        nextToFetch += limit;
+                    }
+                }
+
+                storeBatchPage(eodPage, dateFrom, offset, total, rowsInserted, progress);
+
+                if (lastPage) {
+                    break;
+                }
+
+                checkCancelled(progress, tickers);
+                final var next = window.remove();
+                offset = next.offset();
+                eodPage = await(next.page());
+            }
+        } finally {
+            window.forEach((pending) -> pending.page().cancel(true));
+        }
+
+        rowsInserted.forEach(this::warmLatestPrice);
+
+        final int pages = pagesFetched;
+        final long durationMs = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info(
+                "Finished end of day data for {} tickers from {}: {} rows in {} pages in {} ms",
+                tickers.size(),
+                dateFrom,
+                rowsInserted.values().stream().mapToInt(Integer::intValue).sum(),
+                pages,
+                durationMs
+        );
+
+        return tickers.stream()
+                .map((ticker) -> new IngestionResultDto(ticker, rowsInserted.getOrDefault(ticker, 0), pages, durationMs, null))
+                .toList();
+    }
+
+    /**
+     * Stores the rows of a page of several tickers in one transaction, each under its own ticker.
+     */
+    private void storeBatchPage(
+            EndOfDayBatchPage eodPage,
+            LocalDate dateFrom,
+            int offset,
+            int total,
+            Map<String, Integer> rowsInserted,
+            IngestionProgress progress
+    ) {
+        final long pageStart = System.nanoTime();
+        eodPage.eod().values().forEach(endOfDayPartitions::ensurePartitions);
+        ingestionMetrics.timeWrite(
+                Dataset.EOD,
+                () -> transactionTemplate.executeWithoutResult(
+                        (status) -> eodPage.eod().forEach(
+                                (ticker, prices) -> {
+                                    logRows(prices);
+                                    rowsInserted.merge(ticker, endOfDayPriceBatchWriter.write(ticker, prices), Integer::sum);
+                                }
+                        )
+                )
+        );
+
+        logger.info(
+                "Stored {} end of day prices of {} tickers from {} at offset {} of {} in {} ms",
+                eodPage.rows(),
+                eodPage.eod().size(),
+                dateFrom,
+                offset,
+                total,
+                (System.nanoTime() - pageStart) / 1_000_000
+        );
+
+        eodPage.eod().forEach(this::offerLatestPrice);
+        eodPage.eod().forEach((ticker, prices) -> {
+            if (!prices.isEmpty()) {
+                priceSeriesStore.invalidate(ticker);
+            }
+        });
+        eodPage.eod().forEach(ingestionMetrics::pricesStored);
+        ingestionMetrics.pageStored(Dataset.EOD, eodPage.rows());
+        progress.pageStored(eodPage.rows());
+    }
+
+    public IngestionResultDto processEodData(String ticker) {
+        return processEodData(ticker, IngestionProgress.NONE);
+    }
+
+    /**
+     * Fetches and stores the missing prices of a ticker. Concurrent calls for the same ticker share
+     * one ingestion and its result, each following it with its own progress. A batch that already
+     * ingests the ticker counts as well.
+     */
+    public IngestionResultDto processEodData(String ticker, IngestionProgress progress) {
+        return tickerIngestions.execute(
+                ticker,
+                SharedIngestionProgress.caller(progress),
+                (shared) -> ingestTicker(ticker, shared)
+        );
+    }
+
+    private IngestionResultDto ingestTicker(String ticker, IngestionProgress progress) {
+
+        final long start = System.nanoTime();
+        final var checkpoint = ingestionCheckpoints.find(Dataset.EOD, ticker);
 
         final LocalDate dateFrom;
+        int offset;
 
-        if (latestDate == null) {
-            dateFrom = date;
+        if (checkpoint != null) {
+            // Resume an interrupted backfill from the last committed page
+            dateFrom = checkpoint.getDateFrom();
+            offset = checkpoint.getNextOffset();
+            logger.info("Resuming end of day data for {} from {} at offset {}", ticker, dateFrom, offset);
         } else {
-            dateFrom = latestDate.plusDays(1);
+            final var latestDate = endOfDayPriceDataRepository.findLatestPriceDateForTicker(ticker);
+
+            if (latestDate == null) {
+                dateFrom = date;
+            } else {
+                dateFrom = latestDate.plusDays(1);
+            }
+            offset = 0;
         }
 
-        final var eodDate = marketDataProvider.endOfDayData(ticker, dateFrom, 0);
+        int rowsInserted = 0;
+        int pagesFetched = 0;
+
+        checkCancelled(progress, List.of(ticker));
+        var eodPage = marketDataProvider.endOfDayData(ticker, dateFrom, offset);
+        final var pagination = eodPage.pagination();
+        final int limit = pagination.limit();
+        final int total = pagination.total();
+
+        progress.pagesDiscovered(IngestionProgress.remainingPages(offset, limit, total));
+
+        // After the first page all remaining offsets are known. They are requested ahead without
+        // blocking, in a window that only moves on when a page is stored, so a slow writer holds
+        // back further requests. Pages are stored strictly in order and the checkpoint only ever
+        // moves forward
+        final Deque<PrefetchedPage<EndOfDatePage>> window = new ArrayDeque<>();
+        int nextToFetch = offset + limit;
 
-        final List<EndOfDayPrice> list = new ArrayList<>(eodDate.eod());
+        try {
+            while (true) {
+                pagesFetched++;
+                final boolean lastPage = eodPage.eod().isEmpty() || limit <= 0 || offset + limit >= total;
 
-        final var pagination = eodDate.pagination();
-        final int numCalls = (int) Math.ceil((double) pagination.total() / pagination.limit());
+                if (!lastPage) {
+                    while (window.size() < Math.max(1, prefetchPages) && nextToFetch < total) {
+                        final int prefetchOffset = nextToFetch;
+                        window.add(new PrefetchedPage<>(
+                                prefetchOffset,
+                                asyncMarketDataProvider.endOfDayData(ticker, dateFrom, prefetchOffset)
+                        ));
+                        nextToFetch += limit;
+                    }
+                }
+
+                rowsInserted += storePage(ticker, dateFrom, eodPage.eod(), offset + limit, total, lastPage, progress);
+
+                if (lastPage) {
+                    break;
+                }
 
-        if (numCalls != 0) {
-            for (int i = 1; i <= numCalls; i++) {
-                final var offset = i * pagination.limit();
-                final var eod = marketDataProvider.endOfDayData(ticker, dateFrom, offset);
-                list.addAll(eod.eod());
+                checkCancelled(progress, List.of(ticker));
+                final var next = window.remove();
+                offset = next.offset();
+                eodPage = await(next.page());
             }
+        } finally {
+            window.forEach((pending) -> pending.page().cancel(true));
         }
 
-        list.forEach(
-                (eod) -> {
-                    logger.info("saving " + eod);
-                    final var entity = new EndOfDayPriceDataEntity();
-                    entity.setCurrency(Currency.USD);
-                    entity.setDate(eod.date());
-                    entity.setPrice(eod.close());
-                    entity.setTicker(ticker);
-                    endOfDayPriceDataRepository.save(entity);
-                }
+        warmLatestPrice(ticker, rowsInserted);
+
+        final long durationMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info(
+                "Finished end of day data for {} from {}: {} rows in {} pages in {} ms",
+                ticker,
+                dateFrom,
+                rowsInserted,
+                pagesFetched,
+                durationMs
         );
 
+        return new IngestionResultDto(
+                ticker,
+                rowsInserted,
+                pagesFetched,
+                durationMs,
+                null
+        );
     }
 
     public LatestPriceDto latestPriceForTicker(String ticker) {
+        final var cached = latestPriceCache.get(ticker);
+
+        if (cached != null) {
+            return cached;
+        }
+
         final var entity = endOfDayPriceDataRepository.findLatestPriceForTicker(ticker);
 
         if (entity != null) {
-            return new LatestPriceDto(
+            return latestPriceCache.put(new LatestPriceDto(
                     ticker,
                     entity.getDate(),
                     entity.getPrice()
-            );
+            ));
         } else {
             throw new NotFoundException(String.format("No price found for ticker %s", ticker));
         }
     }
 
+    /**
+     * Resolves the latest prices of many tickers at once. Cached tickers are answered from memory,
+     * the rest with a single query. Tickers without any price are left out of the result.
+     */
+    public List<LatestPriceDto> latestPricesForTickers(List<String> tickers) {
+        final Map<String, LatestPriceDto> latestPrices = new HashMap<>();
+        final List<String> missing = new ArrayList<>();
+
+        tickers.forEach(
+                (ticker) -> {
+                    final var cached = latestPriceCache.get(ticker);
+                    if (cached != null) {
+                        latestPrices.put(ticker, cached);
+                    } else {
+                        missing.add(ticker);
+                    }
+                }
+        );
+
+        if (!missing.isEmpty()) {
+            endOfDayLatestPriceReader.latestPrices(missing).forEach(
+                    (latestPrice) -> latestPrices.put(latestPrice.ticker(), latestPriceCache.put(latestPrice))
+            );
+        }
+
+        return tickers.stream()
+                .map(latestPrices::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Resolves a page of the price history of a ticker. Without a cursor the page starts at
+     * {@code from}, otherwise right after the {@code after} date returned by the previous page.
+     */
+    public PriceHistoryQuery priceHistoryQuery(
+            String ticker,
+            LocalDate from,
+            LocalDate to,
+            LocalDate after,
+            int limit
+    ) {
+        if (limit <= 0 || limit > maxHistoryPageSize) {
+            throw new BusinessException(String.format("Limit has to be between 1 and %d", maxHistoryPageSize));
+        }
+
+        final var upTo = to != null ? to : LocalDate.now();
+        final var startFrom = from != null ? from : date;
+
+        if (startFrom.isAfter(upTo)) {
+            throw new BusinessException(String.format("Date from %s is after date to %s", startFrom, upTo));
+        }
+
+        LocalDate exclusiveFrom = startFrom.minusDays(1);
+        if (after != null && after.isAfter(exclusiveFrom)) {
+            exclusiveFrom = after;
+        }
+
+        return new PriceHistoryQuery(ticker, exclusiveFrom, upTo, limit);
+    }
+
+    public void writePriceHistory(PriceHistoryQuery query, OutputStream outputStream) {
+        endOfDayPriceHistoryReader.write(query.ticker(), query.after(), query.to(), query.limit(), outputStream);
+    }
+
+    /**
+     * Returns the closes of a ticker between two dates, both inclusive, from the in-memory series.
+     */
+    public PriceSeriesDto priceSeries(String ticker, LocalDate from, LocalDate to) {
+        final var upTo = to != null ? to : LocalDate.now();
+        final var startFrom = from != null ? from : date;
+
+        if (startFrom.isAfter(upTo)) {
+            throw new BusinessException(String.format("Date from %s is after date to %s", startFrom, upTo));
+        }
+
+        final var series = priceSeriesStore.get(ticker);
+        final int start = series.lowerBound(startFrom);
+        final int end = series.upperBound(upTo);
+
+        final var dates = new ArrayList<LocalDate>(end - start);
+        final var closes = new double[end - start];
+        for (int i = start; i < end; i++) {
+            dates.add(LocalDate.ofEpochDay(series.epochDay(i)));
+            closes[i - start] = series.close(i);
+        }
+
+        return new PriceSeriesDto(ticker, dates, closes);
+    }
+
+    public CacheStatsDto latestPriceCacheStats() {
+        return latestPriceCache.stats();
+    }
+
+    /**
+     * Stores a page of a single ticker in one transaction together with the offset to continue from,
+     * so each page is durable on its own. Returns the number of rows written.
+     */
+    private int storePage(
+            String ticker,
+            LocalDate dateFrom,
+            List<EndOfDayPrice> prices,
+            int nextOffset,
+            int total,
+            boolean completed,
+            IngestionProgress progress
+    ) {
+        final long pageStart = System.nanoTime();
+        endOfDayPartitions.ensurePartitions(prices);
+        final Integer written = ingestionMetrics.timeWrite(
+                Dataset.EOD,
+                () -> transactionTemplate.execute(
+                        (status) -> {
+                            logRows(prices);
+                            final int rows = endOfDayPriceBatchWriter.write(ticker, prices);
+
+                            if (completed) {
+                                ingestionCheckpoints.complete(Dataset.EOD, ticker);
+                            } else {
+                                ingestionCheckpoints.advance(Dataset.EOD, ticker, dateFrom, nextOffset, total);
+                            }
+                            return rows;
+                        }
+                )
+        );
+
+        final int stored = written != null ? written : 0;
+
+        if (logger.isInfoEnabled()) {
+            logger.info(
+                    "Stored {} end of day prices for {} dated {} to {}, {} of {} fetched, in {} ms",
+                    stored,
+                    ticker,
+                    prices.stream().map(EndOfDayPrice::date).min(LocalDate::compareTo).orElse(null),
+                    prices.stream().map(EndOfDayPrice::date).max(LocalDate::compareTo).orElse(null),
+                    Math.min(nextOffset, total),
+                    total,
+                    (System.nanoTime() - pageStart) / 1_000_000
+            );
+        }
+
+        offerLatestPrice(ticker, prices);
+        if (!prices.isEmpty()) {
+            priceSeriesStore.invalidate(ticker);
+        }
+        ingestionMetrics.pricesStored(ticker, prices);
+        ingestionMetrics.pageStored(Dataset.EOD, stored);
+        progress.pageStored(stored);
+        return stored;
+    }
+
+    private static void logRows(List<EndOfDayPrice> prices) {
+        if (logger.isDebugEnabled()) {
+            prices.forEach((eod) -> logger.debug("saving {}", eod));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Moves the cached latest price forward once the page is committed.
+     */
+    private void offerLatestPrice(String ticker, List<EndOfDayPrice> prices) {
+        prices.stream()
+                .max(Comparator.comparing(EndOfDayPrice::date))
+                .ifPresent((newest) -> latestPriceCache.offer(new LatestPriceDto(ticker, newest.date(), newest.close())));
+    }
+
+    /**
+     * Caches the latest stored price after an ingest, so the first read afterwards does not miss.
+     * Also done when the ticker is cached already: a read racing the ingest may have cached a
+     * price loaded before the pages were committed, which offering the pages did not replace.
+     */
+    private void warmLatestPrice(String ticker, int rowsInserted) {
+        if (rowsInserted > 0) {
+            final var entity = endOfDayPriceDataRepository.findLatestPriceForTicker(ticker);
+            if (entity != null) {
+                latestPriceCache.put(new LatestPriceDto(ticker, entity.getDate(), entity.getPrice()));
+            }
+        }
+    }
+
+    private static void checkCancelled(IngestionProgress progress, List<String> tickers) {
+        if (progress.isCancelled()) {
+            throw new CancellationException(String.format("End of day data processing cancelled for %s", tickers));
+        }
+    }
+
+    private record EodBatch(
+            List<String> tickers,
+            LocalDate dateFrom // Not used for a single ticker, which resolves its own start
+    ) {
+    }
+
+    private record PrefetchedPage<T>(
+            int offset,
+            CompletableFuture<T> page
+    ) {
+    }
 }
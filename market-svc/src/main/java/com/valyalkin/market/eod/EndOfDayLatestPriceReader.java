@@ -0,0 +1,74 @@
+package com.valyalkin.market.eod;
+
+import com.valyalkin.market.config.jdbc.DatabaseDialect;
+import com.valyalkin.market.dto.LatestPriceDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the latest price of many tickers in one statement. On PostgreSQL every ticker is a
+ * lateral {@code ORDER BY date DESC LIMIT 1} lookup, a single index seek per ticker however long
+ * its history is. The tickers are bound as one array, so the statement is the same for any number
+ * of tickers.
+ */
+@Component
+public class EndOfDayLatestPriceReader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String selectSql;
+
+    public EndOfDayLatestPriceReader(
+            JdbcTemplate jdbcTemplate,
+            DatabaseDialect databaseDialect,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.selectSql = selectSql(databaseDialect, schema + ".end_of_day");
+    }
+
+    private static String selectSql(DatabaseDialect databaseDialect, String table) {
+        return switch (databaseDialect.database()) {
+            case POSTGRESQL -> "SELECT requested.ticker, latest.date, latest.price " +
+                    "FROM unnest(?::VARCHAR[]) AS requested (ticker) " +
+                    "CROSS JOIN LATERAL (" +
+                    "    SELECT e.date, e.price FROM " + table + " e " +
+                    "    WHERE e.ticker = requested.ticker " +
+                    "    ORDER BY e.date DESC " +
+                    "    LIMIT 1" +
+                    ") latest";
+            case H2 -> "SELECT e.ticker, e.date, e.price FROM " + table + " e " +
+                    "JOIN (" +
+                    "    SELECT ticker, MAX(date) AS latest_date FROM " + table + " " +
+                    "    WHERE ticker = ANY(?) " +
+                    "    GROUP BY ticker" +
+                    ") latest ON e.ticker = latest.ticker AND e.date = latest.latest_date";
+        };
+    }
+
+    /**
+     * Returns the latest price of every given ticker that has one, in no particular order.
+     */
+    public List<LatestPriceDto> latestPrices(Collection<String> tickers) {
+        if (tickers.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(
+                (connection) -> {
+                    final var statement = connection.prepareStatement(selectSql);
+                    statement.setArray(1, connection.createArrayOf("VARCHAR", tickers.toArray()));
+                    return statement;
+                },
+                (resultSet, rowNumber) -> new LatestPriceDto(
+                        resultSet.getString(1),
+                        resultSet.getObject(2, LocalDate.class),
+                        resultSet.getBigDecimal(3)
+                )
+        );
+    }
+}
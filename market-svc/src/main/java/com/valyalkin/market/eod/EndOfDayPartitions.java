@@ -0,0 +1,103 @@
+package com.valyalkin.market.eod;
+
+import com.valyalkin.market.config.jdbc.DatabaseDialect;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the yearly partitions of {@code end_of_day} for every date that can be ingested, from the
+ * year of {@code data.date-from} up to {@code years-ahead} years after the current one. The table
+ * has no default partition, which keeps latest price lookups an ordered Append, so a row dated
+ * outside of these partitions is rejected.
+ * <p>
+ * Rows can still be older than {@code data.date-from}, e.g. when resuming from a checkpoint taken
+ * before it was raised. Writers call {@link #ensurePartitions(Collection)} before storing a page,
+ * which creates the partitions of any year not seen yet. Only PostgreSQL tables are partitioned.
+ */
+@Component
+public class EndOfDayPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndOfDayPartitions.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String schema;
+    private final LocalDate dateFrom;
+    private final int yearsAhead;
+    private final boolean partitioned;
+    private final Set<Integer> years = ConcurrentHashMap.newKeySet();
+
+    public EndOfDayPartitions(
+            JdbcTemplate jdbcTemplate,
+            DatabaseDialect databaseDialect,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+            @Value("${data.date-from}") LocalDate dateFrom,
+            @Value("${data.partitions.years-ahead:1}") int yearsAhead
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = schema;
+        this.dateFrom = dateFrom;
+        this.yearsAhead = yearsAhead;
+        this.partitioned = databaseDialect.isPostgreSql();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${data.partitions.cron:0 0 3 1 * *}", zone = "UTC")
+    public void createUpcomingPartitions() {
+        if (!partitioned) {
+            return;
+        }
+
+        final int currentYear = LocalDate.now(ZoneOffset.UTC).getYear();
+
+        for (int year = Math.min(dateFrom.getYear(), currentYear); year <= currentYear + yearsAhead; year++) {
+            createPartition(year);
+        }
+    }
+
+    /**
+     * Creates the partitions for the years of the given prices that have none yet. Has to run
+     * outside of the transaction storing them, so a rolled back page does not drop a partition
+     * that is already remembered as created.
+     */
+    public void ensurePartitions(Collection<EndOfDayPrice> prices) {
+        if (!partitioned) {
+            return;
+        }
+
+        prices.stream()
+                .map((price) -> price.date().getYear())
+                .distinct()
+                .filter((year) -> !years.contains(year))
+                .sorted()
+                .forEach(this::createPartition);
+    }
+
+    private void createPartition(int year) {
+        try {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %1$s.end_of_day_%2$d PARTITION OF %1$s.end_of_day " +
+                            "FOR VALUES FROM ('%2$d-01-01') TO ('%3$d-01-01')",
+                    schema,
+                    year,
+                    year + 1
+            ));
+            years.add(year);
+        } catch (DataAccessException e) {
+            logger.warn("Not able to create the end of day partition for {}: {}", year, e.getMessage());
+        }
+    }
+}
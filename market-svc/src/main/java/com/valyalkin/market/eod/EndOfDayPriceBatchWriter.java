@@ -0,0 +1,77 @@
+package com.valyalkin.market.eod;
+
+import com.valyalkin.market.config.jdbc.DatabaseDialect;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bulk write path for end of day prices. Rows are sent to the database in JDBC batches
+ * instead of one INSERT per entity through the JPA repository. Writes are upserts on
+ * (ticker, date), so storing the same page twice leaves a single row per day.
+ */
+@Component
+public class EndOfDayPriceBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndOfDayPriceBatchWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final String upsertSql;
+
+    public EndOfDayPriceBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            DatabaseDialect databaseDialect,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+            @Value("${data.ingestion.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.upsertSql = databaseDialect.upsertSql(
+                schema + ".end_of_day",
+                List.of("ticker", "date"),
+                List.of("price", "currency")
+        );
+    }
+
+    /**
+     * Inserts or updates the given prices for the ticker and returns the number of rows written.
+     */
+    public int write(String ticker, List<EndOfDayPrice> prices) {
+        if (prices.isEmpty()) {
+            return 0;
+        }
+
+        final long start = System.nanoTime();
+
+        jdbcTemplate.batchUpdate(
+                upsertSql,
+                prices,
+                batchSize,
+                (ps, price) -> {
+                    ps.setString(1, ticker);
+                    ps.setObject(2, price.date());
+                    ps.setBigDecimal(3, price.close());
+                    ps.setString(4, Currency.USD.name());
+                }
+        );
+
+        final long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        final long rowsPerSecond = prices.size() * 1_000_000_000L / elapsedNanos;
+
+        logger.debug(
+                "Saved {} end of day prices for {} in {} ms ({} rows/s)",
+                prices.size(),
+                ticker,
+                elapsedNanos / 1_000_000,
+                rowsPerSecond
+        );
+
+        return prices.size();
+    }
+}
@@ -5,26 +5,24 @@ import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.UUID;
 
 @Entity
 @Table(name = "end_of_day")
+@IdClass(EndOfDayPriceId.class)
 @NoArgsConstructor
 @ToString
 @Getter
 @Setter
 public class EndOfDayPriceDataEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    private UUID id;
-
     @Column(name = "ticker", nullable = false)
     private String ticker;
 
+    @Id
     @Column(nullable = false)
     private LocalDate date;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 19, scale = 4)
     private BigDecimal price;
 
     @Enumerated(EnumType.STRING)
@@ -5,28 +5,34 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
 
-public interface EndOfDayPriceDataRepository extends JpaRepository<EndOfDayPriceDataEntity, UUID> {
+public interface EndOfDayPriceDataRepository extends JpaRepository<EndOfDayPriceDataEntity, EndOfDayPriceId> {
+
+    default LocalDate findLatestPriceDateForTicker(String ticker) {
+        final var latest = findFirstByTickerOrderByDateDesc(ticker);
+        return latest == null ? null : latest.getDate();
+    }
 
     @Query(
-            "SELECT MAX(e.date) " +
+            "SELECT e.ticker AS ticker, MAX(e.date) AS latestDate " +
                     "FROM EndOfDayPriceDataEntity e " +
-                    "WHERE e.ticker = :ticker"
+                    "WHERE e.ticker IN :tickers " +
+                    "GROUP BY e.ticker"
     )
-    LocalDate findLatestPriceDateForTicker(@Param("ticker") String ticker);
+    List<TickerLatestDate> findLatestPriceDatesForTickers(@Param("tickers") Collection<String> tickers);
 
-    @Query(
-            "SELECT eod " +
-                    "FROM EndOfDayPriceDataEntity eod " +
-                    "WHERE eod.ticker = :ticker AND eod.date = (" +
-                    "    SELECT MAX(eod1.date) " +
-                    "    FROM EndOfDayPriceDataEntity eod1 " +
-                    "    WHERE eod1.ticker = :ticker" +
-                    ")"
-    )
-    EndOfDayPriceDataEntity findLatestPriceForTicker(@Param("ticker") String ticker);
+    default EndOfDayPriceDataEntity findLatestPriceForTicker(String ticker) {
+        return findFirstByTickerOrderByDateDesc(ticker);
+    }
+
+    /**
+     * The yearly partitions cover disjoint date ranges and there is no default partition, so
+     * ORDER BY date DESC LIMIT 1 is planned as an ordered Append. It reads the partitions newest
+     * first and stops in the first one holding the ticker, usually the current year.
+     */
+    EndOfDayPriceDataEntity findFirstByTickerOrderByDateDesc(String ticker);
 
     List<EndOfDayPriceDataEntity> findByTicker(String ticker);
 }
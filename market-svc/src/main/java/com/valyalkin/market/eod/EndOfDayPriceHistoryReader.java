@@ -0,0 +1,104 @@
+package com.valyalkin.market.eod;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+/**
+ * Streams a range of end of day prices straight from the result set into a JSON response.
+ * Pages are addressed with a keyset cursor on (ticker, date): the next page starts after the
+ * last date returned, which is an index seek no matter how deep the client pages.
+ */
+@Component
+public class EndOfDayPriceHistoryReader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final String selectSql;
+
+    public EndOfDayPriceHistoryReader(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+            @Value("${data.history.fetch-size:500}") int fetchSize
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only uses a cursor for the fetch size when the connection is not in auto commit
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.selectSql = "SELECT date, price FROM " + schema + ".end_of_day " +
+                "WHERE ticker = ? AND date > ? AND date <= ? " +
+                "ORDER BY date " +
+                "LIMIT ?";
+    }
+
+    /**
+     * Writes up to {@code limit} prices of the ticker with a date after {@code after} and up to
+     * {@code to}, oldest first. The response carries the cursor of the next page in {@code next},
+     * which is null on the last page.
+     */
+    public void write(String ticker, LocalDate after, LocalDate to, int limit, OutputStream outputStream) {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeStringField("ticker", ticker);
+            generator.writeArrayFieldStart("prices");
+
+            final var cursor = new Cursor();
+
+            readOnlyTransaction.executeWithoutResult(
+                    (status) -> jdbcTemplate.query(
+                            selectSql,
+                            (RowCallbackHandler) (resultSet) -> {
+                                // One row more than requested tells whether there is a next page
+                                if (++cursor.rows > limit) {
+                                    cursor.hasMore = true;
+                                    return;
+                                }
+
+                                final var date = resultSet.getObject(1, LocalDate.class);
+                                try {
+                                    generator.writeStartObject();
+                                    generator.writeStringField("date", date.toString());
+                                    generator.writeNumberField("price", resultSet.getBigDecimal(2));
+                                    generator.writeEndObject();
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                                cursor.last = date;
+                            },
+                            ticker,
+                            after,
+                            to,
+                            limit + 1
+                    )
+            );
+
+            generator.writeEndArray();
+            generator.writeStringField("next", cursor.hasMore ? cursor.last.toString() : null);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Cursor {
+        private int rows;
+        private boolean hasMore;
+        private LocalDate last;
+    }
+}
@@ -0,0 +1,25 @@
+package com.valyalkin.market.eod;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Primary key of an end of day price, one row per ticker and day.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+@Getter
+public class EndOfDayPriceId implements Serializable {
+
+    private String ticker;
+
+    private LocalDate date;
+}
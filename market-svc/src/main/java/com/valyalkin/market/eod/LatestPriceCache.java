@@ -0,0 +1,73 @@
+package com.valyalkin.market.eod;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.valyalkin.market.dto.CacheStatsDto;
+import com.valyalkin.market.dto.LatestPriceDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache of the latest price per ticker, rarely used entries are evicted first.
+ * Reads do not lock, so concurrent requests do not queue behind each other. Ingestion offers every
+ * stored page so cached entries never fall behind the database.
+ */
+@Component
+public class LatestPriceCache {
+
+    private final int maxSize;
+    private final Cache<String, LatestPriceDto> entries;
+
+    public LatestPriceCache(@Value("${data.cache.latest-price.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    public LatestPriceDto get(String ticker) {
+        return entries.getIfPresent(ticker);
+    }
+
+    /**
+     * Caches a price loaded from the database and returns the entry that ends up cached. An entry
+     * with a later date is kept: a read that loaded its price before a concurrent ingest committed
+     * must not replace the newer price the ingest cached.
+     */
+    public LatestPriceDto put(LatestPriceDto latestPrice) {
+        return entries.asMap().merge(
+                latestPrice.ticker(),
+                latestPrice,
+                (cached, loaded) -> loaded.latestDate().isBefore(cached.latestDate()) ? cached : loaded
+        );
+    }
+
+    /**
+     * Replaces the cached entry if the offered price is newer. Tickers that are not cached are
+     * left alone, the offered row is not necessarily the latest one stored.
+     */
+    public void offer(LatestPriceDto latestPrice) {
+        entries.asMap().computeIfPresent(
+                latestPrice.ticker(),
+                (ticker, cached) -> latestPrice.latestDate().isBefore(cached.latestDate()) ? cached : latestPrice
+        );
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public CacheStatsDto stats() {
+        final var stats = entries.stats();
+        return new CacheStatsDto(
+                "latest-price",
+                (int) entries.estimatedSize(),
+                maxSize,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.requestCount() > 0 ? stats.hitRate() : 0,
+                stats.evictionCount()
+        );
+    }
+}
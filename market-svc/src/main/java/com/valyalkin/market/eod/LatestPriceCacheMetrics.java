@@ -0,0 +1,44 @@
+package com.valyalkin.market.eod;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the latest price cache with the usual cache meter names, the hit ratio is
+ * {@code cache.gets{result="hit"}} over all {@code cache.gets}.
+ */
+@Component
+public class LatestPriceCacheMetrics implements MeterBinder {
+
+    private static final String CACHE = "latest-price";
+
+    private final LatestPriceCache latestPriceCache;
+
+    public LatestPriceCacheMetrics(LatestPriceCache latestPriceCache) {
+        this.latestPriceCache = latestPriceCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.size", latestPriceCache, (cache) -> cache.stats().size())
+                .tag("cache", CACHE)
+                .register(registry);
+
+        FunctionCounter.builder("cache.gets", latestPriceCache, (cache) -> cache.stats().hits())
+                .tag("cache", CACHE)
+                .tag("result", "hit")
+                .register(registry);
+
+        FunctionCounter.builder("cache.gets", latestPriceCache, (cache) -> cache.stats().misses())
+                .tag("cache", CACHE)
+                .tag("result", "miss")
+                .register(registry);
+
+        FunctionCounter.builder("cache.evictions", latestPriceCache, (cache) -> cache.stats().evictions())
+                .tag("cache", CACHE)
+                .register(registry);
+    }
+}
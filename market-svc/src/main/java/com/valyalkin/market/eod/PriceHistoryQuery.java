@@ -0,0 +1,11 @@
+package com.valyalkin.market.eod;
+
+import java.time.LocalDate;
+
+public record PriceHistoryQuery(
+        String ticker,
+        LocalDate after, // Exclusive lower bound, either the day before "from" or the cursor
+        LocalDate to,
+        int limit
+) {
+}
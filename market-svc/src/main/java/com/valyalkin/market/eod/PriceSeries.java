@@ -0,0 +1,67 @@
+package com.valyalkin.market.eod;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Immutable view of the daily closes of one ticker, ordered by date. Dates are kept as epoch days
+ * and closes as fixed point values with {@link #SCALE} decimals, 12 bytes per bar.
+ */
+public final class PriceSeries {
+
+    public static final int SCALE = 4;
+    private static final double SCALE_FACTOR = Math.pow(10, SCALE);
+
+    static final PriceSeries EMPTY = new PriceSeries(new int[0], new long[0], 0);
+
+    private final int[] epochDays;
+    private final long[] closes;
+    private final int size;
+
+    PriceSeries(int[] epochDays, long[] closes, int size) {
+        this.epochDays = epochDays;
+        this.closes = closes;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int epochDay(int index) {
+        return epochDays[index];
+    }
+
+    public long scaledClose(int index) {
+        return closes[index];
+    }
+
+    public double close(int index) {
+        return closes[index] / SCALE_FACTOR;
+    }
+
+    /**
+     * Index of the first bar on or after the date, {@link #size()} if there is none.
+     */
+    public int lowerBound(LocalDate date) {
+        return bound((int) date.toEpochDay());
+    }
+
+    /**
+     * Index of the first bar after the date, {@link #size()} if there is none.
+     */
+    public int upperBound(LocalDate date) {
+        return bound((int) date.toEpochDay() + 1);
+    }
+
+    private int bound(int epochDay) {
+        final int index = Arrays.binarySearch(epochDays, 0, size, epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    static long toScaled(BigDecimal close) {
+        return close.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
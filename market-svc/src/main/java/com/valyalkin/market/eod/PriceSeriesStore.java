@@ -0,0 +1,139 @@
+package com.valyalkin.market.eod;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Read optimized in-memory copy of the end of day closes, for at most {@code max-size} tickers with
+ * the least recently used evicted first. A ticker is loaded from the database on first access and
+ * dropped when ingestion commits new prices for it, the next access loads it again. Tickers
+ * without any price are not kept, so unknown symbols cannot fill the store.
+ * <p>
+ * Loads run outside of the lock of the map, so a virtual thread waiting on the database does not
+ * pin its carrier. A load that is invalidated while running still answers its callers, but its
+ * result is not kept.
+ */
+@Component
+public class PriceSeriesStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String selectSql;
+    private final int maxSize;
+    private final Map<String, CompletableFuture<PriceSeries>> series;
+
+    public PriceSeriesStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+            @Value("${data.cache.price-series.max-size:1000}") int maxSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.selectSql = "SELECT date, price FROM " + schema + ".end_of_day WHERE ticker = ? ORDER BY date";
+        this.maxSize = maxSize;
+        this.series = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<PriceSeries>> eldest) {
+                return size() > PriceSeriesStore.this.maxSize;
+            }
+        };
+    }
+
+    public PriceSeries get(String ticker) {
+        final var own = new CompletableFuture<PriceSeries>();
+        final CompletableFuture<PriceSeries> loading;
+
+        synchronized (this) {
+            loading = series.putIfAbsent(ticker, own);
+        }
+
+        if (loading != null) {
+            return await(loading);
+        }
+
+        final PriceSeries loaded;
+        try {
+            loaded = load(ticker);
+        } catch (RuntimeException e) {
+            remove(ticker, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+
+        if (loaded.size() == 0) {
+            remove(ticker, own);
+        }
+        own.complete(loaded);
+        return loaded;
+    }
+
+    /**
+     * Drops the series of a ticker after new prices for it were committed.
+     */
+    public synchronized void invalidate(String ticker) {
+        series.remove(ticker);
+    }
+
+    public synchronized int size() {
+        return series.size();
+    }
+
+    public synchronized void clear() {
+        series.clear();
+    }
+
+    private synchronized void remove(String ticker, CompletableFuture<PriceSeries> loading) {
+        series.remove(ticker, loading);
+    }
+
+    private static PriceSeries await(CompletableFuture<PriceSeries> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private PriceSeries load(String ticker) {
+        final var loader = new Loader();
+        jdbcTemplate.query(selectSql, (RowCallbackHandler) (resultSet) -> loader.add(
+                resultSet.getObject(1, LocalDate.class),
+                resultSet.getBigDecimal(2)
+        ), ticker);
+        return loader.build();
+    }
+
+    private static class Loader {
+        private int[] epochDays = new int[256];
+        private long[] closes = new long[256];
+        private int size;
+
+        void add(LocalDate date, BigDecimal close) {
+            if (size == epochDays.length) {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                closes = Arrays.copyOf(closes, size * 2);
+            }
+            epochDays[size] = (int) date.toEpochDay();
+            closes[size++] = PriceSeries.toScaled(close);
+        }
+
+        PriceSeries build() {
+            if (size == 0) {
+                return PriceSeries.EMPTY;
+            }
+            // Kept for as long as the ticker stays in the store, so without the spare capacity of the growth
+            return new PriceSeries(Arrays.copyOf(epochDays, size), Arrays.copyOf(closes, size), size);
+        }
+    }
+}
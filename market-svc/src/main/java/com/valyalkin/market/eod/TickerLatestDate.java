@@ -0,0 +1,8 @@
+package com.valyalkin.market.eod;
+
+import java.time.LocalDate;
+
+public interface TickerLatestDate {
+    String getTicker();
+    LocalDate getLatestDate();
+}
@@ -0,0 +1,6 @@
+package com.valyalkin.market.ingestion;
+
+public enum Dataset {
+    EOD,
+    DIVIDENDS
+}
@@ -0,0 +1,49 @@
+package com.valyalkin.market.ingestion;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(
+        name = "ingestion_checkpoints",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_ingestion_checkpoints_dataset_ticker",
+                columnNames = {"dataset", "ticker"}
+        )
+)
+@NoArgsConstructor
+@ToString
+@Getter
+@Setter
+public class IngestionCheckpointEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Dataset dataset;
+
+    @Column(nullable = false)
+    private String ticker;
+
+    @Column(name = "date_from", nullable = false)
+    private LocalDate dateFrom;
+
+    @Column(name = "next_offset", nullable = false)
+    private int nextOffset;
+
+    @Column(nullable = false)
+    private int total;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,12 @@
+package com.valyalkin.market.ingestion;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface IngestionCheckpointRepository extends JpaRepository<IngestionCheckpointEntity, UUID> {
+    IngestionCheckpointEntity findByDatasetAndTicker(Dataset dataset, String ticker);
+    List<IngestionCheckpointEntity> findByDatasetAndTickerIn(Dataset dataset, Collection<String> tickers);
+}
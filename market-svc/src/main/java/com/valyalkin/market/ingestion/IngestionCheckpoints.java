@@ -0,0 +1,63 @@
+package com.valyalkin.market.ingestion;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of how far a paged backfill got. Providers return the newest rows first, so once
+ * the first page is persisted the latest stored date no longer tells where to continue from.
+ * The checkpoint is written in the same transaction as the page it describes and removed once
+ * the last page is stored.
+ */
+@Component
+public class IngestionCheckpoints {
+
+    private final IngestionCheckpointRepository repository;
+
+    public IngestionCheckpoints(IngestionCheckpointRepository repository) {
+        this.repository = repository;
+    }
+
+    public IngestionCheckpointEntity find(Dataset dataset, String ticker) {
+        return repository.findByDatasetAndTicker(dataset, ticker);
+    }
+
+    /**
+     * Returns those of the given tickers that have an unfinished backfill.
+     */
+    public Set<String> pending(Dataset dataset, Collection<String> tickers) {
+        return repository.findByDatasetAndTickerIn(dataset, tickers).stream()
+                .map(IngestionCheckpointEntity::getTicker)
+                .collect(Collectors.toSet());
+    }
+
+    public void advance(Dataset dataset, String ticker, LocalDate dateFrom, int nextOffset, int total) {
+        var checkpoint = repository.findByDatasetAndTicker(dataset, ticker);
+
+        if (checkpoint == null) {
+            checkpoint = new IngestionCheckpointEntity();
+            checkpoint.setDataset(dataset);
+            checkpoint.setTicker(ticker);
+        }
+
+        checkpoint.setDateFrom(dateFrom);
+        checkpoint.setNextOffset(nextOffset);
+        checkpoint.setTotal(total);
+        checkpoint.setUpdatedAt(Instant.now());
+
+        repository.save(checkpoint);
+    }
+
+    public void complete(Dataset dataset, String ticker) {
+        final var checkpoint = repository.findByDatasetAndTicker(dataset, ticker);
+
+        if (checkpoint != null) {
+            repository.delete(checkpoint);
+        }
+    }
+}
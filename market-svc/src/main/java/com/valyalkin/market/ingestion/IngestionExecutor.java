@@ -0,0 +1,75 @@
+package com.valyalkin.market.ingestion;
+
+import com.valyalkin.market.config.exception.SystemException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs ingestion tasks concurrently on virtual threads. The number of tasks running at the same
+ * time is capped by {@code data.ingestion.parallelism}, which also bounds the number of requests
+ * in flight against the upstream provider and the number of pooled database connections taken
+ * by ingestion.
+ */
+@Component
+public class IngestionExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public IngestionExecutor(@Value("${data.ingestion.parallelism:4}") int parallelism) {
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    /**
+     * Applies the task to every item and returns the results in the order of the input.
+     * Tasks are expected to report their own failures in the result, an exception a task throws
+     * anyway, e.g. when the ingestion was cancelled, is rethrown as is.
+     */
+    public <T, R> List<R> invokeAll(List<T> items, Function<T, R> task) {
+        final List<CompletableFuture<R>> futures = items.stream()
+                .map((item) -> CompletableFuture.supplyAsync(() -> run(item, task), executor))
+                .toList();
+
+        return futures.stream().map(IngestionExecutor::join).toList();
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T, R> R run(T item, Function<T, R> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("Interrupted while waiting for an ingestion slot");
+        }
+
+        try {
+            return task.apply(item);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
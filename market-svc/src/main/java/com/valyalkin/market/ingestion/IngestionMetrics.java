@@ -0,0 +1,123 @@
+package com.valyalkin.market.ingestion;
+
+import com.valyalkin.market.eod.EndOfDayPriceDataRepository;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.ticker.TickersEntity;
+import com.valyalkin.market.ticker.TickersRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the ingestion path: pages and rows stored, the latency of the transaction storing a
+ * page and, per ticker, how many days the latest stored price lies behind today.
+ */
+@Component
+public class IngestionMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final EndOfDayPriceDataRepository endOfDayPriceDataRepository;
+    private final TickersRepository tickersRepository;
+
+    private final Map<Dataset, Counter> pages = new EnumMap<>(Dataset.class);
+    private final Map<Dataset, Counter> rows = new EnumMap<>(Dataset.class);
+    private final Map<Dataset, Timer> writes = new EnumMap<>(Dataset.class);
+    private final Map<String, LocalDate> latestPriceDates = new ConcurrentHashMap<>();
+
+    public IngestionMetrics(
+            MeterRegistry meterRegistry,
+            EndOfDayPriceDataRepository endOfDayPriceDataRepository,
+            TickersRepository tickersRepository
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.endOfDayPriceDataRepository = endOfDayPriceDataRepository;
+        this.tickersRepository = tickersRepository;
+
+        for (Dataset dataset : Dataset.values()) {
+            final var tag = dataset.name().toLowerCase();
+            pages.put(dataset, Counter.builder("ingestion.pages")
+                    .description("Pages stored by ingestion")
+                    .tag("dataset", tag)
+                    .register(meterRegistry));
+            rows.put(dataset, Counter.builder("ingestion.rows")
+                    .description("Rows stored by ingestion")
+                    .tag("dataset", tag)
+                    .register(meterRegistry));
+            writes.put(dataset, Timer.builder("ingestion.db.write")
+                    .description("Transaction storing one page, including its checkpoint")
+                    .tag("dataset", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T timeWrite(Dataset dataset, Supplier<T> write) {
+        return writes.get(dataset).record(write);
+    }
+
+    public void timeWrite(Dataset dataset, Runnable write) {
+        writes.get(dataset).record(write);
+    }
+
+    public void pageStored(Dataset dataset, int stored) {
+        pages.get(dataset).increment();
+        rows.get(dataset).increment(stored);
+    }
+
+    public void pricesStored(String ticker, List<EndOfDayPrice> prices) {
+        prices.stream()
+                .map(EndOfDayPrice::date)
+                .max(LocalDate::compareTo)
+                .ifPresent((date) -> latestPriceDate(ticker, date));
+    }
+
+    /**
+     * Starts tracking the staleness of every ticker with end of day prices.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void trackTickers() {
+        final var tickers = tickersRepository.findByHasEodPriceTrue().stream()
+                .map(TickersEntity::getSymbol)
+                .toList();
+
+        if (!tickers.isEmpty()) {
+            endOfDayPriceDataRepository.findLatestPriceDatesForTickers(tickers).forEach(
+                    (latest) -> latestPriceDate(latest.getTicker(), latest.getLatestDate())
+            );
+        }
+    }
+
+    private void latestPriceDate(String ticker, LocalDate date) {
+        final var previous = latestPriceDates.putIfAbsent(ticker, date);
+
+        if (previous == null) {
+            Gauge.builder("eod.staleness", latestPriceDates, (dates) -> stalenessDays(dates.get(ticker)))
+                    .description("Days between the latest stored end of day price and today")
+                    .baseUnit("days")
+                    .tag("ticker", ticker)
+                    .register(meterRegistry);
+        } else {
+            latestPriceDates.merge(ticker, date, (current, offered) -> offered.isAfter(current) ? offered : current);
+        }
+    }
+
+    private static double stalenessDays(LocalDate latestDate) {
+        if (latestDate == null) {
+            return Double.NaN;
+        }
+        return ChronoUnit.DAYS.between(latestDate, LocalDate.now(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,53 @@
+package com.valyalkin.market.ingestion;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Receives progress of a running ingestion. Implementations are called from several ingestion
+ * threads at once and have to be thread safe.
+ */
+public interface IngestionProgress {
+
+    IngestionProgress NONE = new IngestionProgress() {
+        @Override
+        public void pagesDiscovered(int pages) {
+        }
+
+        @Override
+        public void pageStored(int rows) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * Called once per chain of paged calls when the first page tells how many pages are left.
+     */
+    void pagesDiscovered(int pages);
+
+    void pageStored(int rows);
+
+    /**
+     * Checked between pages, a cancelled ingestion stops before fetching the next page.
+     */
+    boolean isCancelled();
+
+    /**
+     * Completes once the ingestion is cancelled, for a caller waiting for an ingestion another
+     * caller runs. By default it never completes, such a caller waits until that ingestion is done.
+     */
+    default CompletionStage<Void> cancellation() {
+        return new CompletableFuture<>();
+    }
+
+    static int remainingPages(int offset, int limit, int total) {
+        if (limit <= 0 || total <= offset) {
+            return 1;
+        }
+        return (int) Math.ceil((double) (total - offset) / limit);
+    }
+}
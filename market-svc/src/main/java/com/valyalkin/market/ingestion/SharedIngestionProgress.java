@@ -0,0 +1,84 @@
+package com.valyalkin.market.ingestion;
+
+import com.valyalkin.market.concurrent.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Progress of an ingestion shared by concurrent callers through a {@link SingleFlight}. Pages are
+ * passed on to every caller following the ingestion, which is not tied to the caller that started
+ * it: it only counts as cancelled once all of them are.
+ */
+public class SharedIngestionProgress implements IngestionProgress {
+
+    private final List<IngestionProgress> callers = new ArrayList<>();
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+    private int pagesDiscovered;
+    private int pagesStored;
+
+    /**
+     * The caller following a shared ingestion with its own progress.
+     */
+    public static SingleFlight.Caller<SharedIngestionProgress> caller(IngestionProgress progress) {
+        return new SingleFlight.Caller<>() {
+            @Override
+            public CompletionStage<?> cancellation() {
+                return progress.cancellation();
+            }
+
+            @Override
+            public void join(SharedIngestionProgress shared) {
+                shared.attach(progress);
+            }
+
+            @Override
+            public void leave(SharedIngestionProgress shared) {
+                shared.detach(progress);
+            }
+        };
+    }
+
+    synchronized void attach(IngestionProgress progress) {
+        callers.add(progress);
+        // A late caller learns about the pages that are still left
+        if (pagesDiscovered > pagesStored) {
+            progress.pagesDiscovered(pagesDiscovered - pagesStored);
+        }
+        progress.cancellation().thenRun(this::cancelWhenAllCancelled);
+    }
+
+    synchronized void detach(IngestionProgress progress) {
+        callers.remove(progress);
+    }
+
+    private synchronized void cancelWhenAllCancelled() {
+        if (isCancelled()) {
+            cancellation.complete(null);
+        }
+    }
+
+    @Override
+    public synchronized void pagesDiscovered(int pages) {
+        pagesDiscovered += pages;
+        callers.forEach((caller) -> caller.pagesDiscovered(pages));
+    }
+
+    @Override
+    public synchronized void pageStored(int rows) {
+        pagesStored++;
+        callers.forEach((caller) -> caller.pageStored(rows));
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return callers.stream().allMatch(IngestionProgress::isCancelled);
+    }
+
+    @Override
+    public CompletionStage<Void> cancellation() {
+        return cancellation;
+    }
+}
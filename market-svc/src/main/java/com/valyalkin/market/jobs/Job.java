@@ -0,0 +1,160 @@
+package com.valyalkin.market.jobs;
+
+import com.valyalkin.market.dto.IngestionResultDto;
+import com.valyalkin.market.dto.JobDto;
+import com.valyalkin.market.ingestion.IngestionProgress;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory state of a background ingestion job. Progress is reported by the ingestion threads
+ * while the job is polled from request threads.
+ */
+class Job implements IngestionProgress {
+
+    private final UUID id = UUID.randomUUID();
+    private final JobType type;
+    private final List<String> tickers;
+    private final Instant submittedAt = Instant.now();
+
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private final AtomicInteger pagesTotal = new AtomicInteger();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile List<IngestionResultDto> results = List.of();
+    private volatile Future<?> future;
+
+    Job(JobType type, List<String> tickers) {
+        this.type = type;
+        this.tickers = tickers;
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    JobType type() {
+        return type;
+    }
+
+    List<String> tickers() {
+        return tickers;
+    }
+
+    JobStatus status() {
+        return status;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    void submitted(Future<?> future) {
+        this.future = future;
+    }
+
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        status = JobStatus.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void complete(List<IngestionResultDto> results) {
+        this.results = results;
+        // Failures are reported per ticker, the job only fails when nothing succeeded
+        final boolean allFailed = !results.isEmpty() && results.stream().allMatch((result) -> result.error() != null);
+        finish(allFailed ? JobStatus.FAILED : JobStatus.COMPLETED, allFailed ? "All tickers failed" : null);
+    }
+
+    synchronized void fail(String error) {
+        finish(JobStatus.FAILED, error);
+    }
+
+    synchronized void cancel() {
+        if (status.isFinished()) {
+            return;
+        }
+        finish(JobStatus.CANCELLED, null);
+        cancellation.complete(null);
+
+        // A running job stops at the next page boundary, interrupting it could break a pooled connection
+        final var submitted = future;
+        if (submitted != null) {
+            submitted.cancel(false);
+        }
+    }
+
+    private void finish(JobStatus finalStatus, String error) {
+        if (status.isFinished()) {
+            return;
+        }
+        this.status = finalStatus;
+        this.error = error;
+        this.finishedAt = Instant.now();
+    }
+
+    @Override
+    public void pagesDiscovered(int pages) {
+        pagesTotal.addAndGet(pages);
+    }
+
+    @Override
+    public void pageStored(int rows) {
+        pagesDone.incrementAndGet();
+        rowsWritten.addAndGet(rows);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return status == JobStatus.CANCELLED;
+    }
+
+    @Override
+    public CompletionStage<Void> cancellation() {
+        return cancellation;
+    }
+
+    JobDto toDto() {
+        final var started = startedAt;
+        final var finished = finishedAt;
+        final long rows = rowsWritten.get();
+
+        double rowsPerSecond = 0;
+        if (started != null) {
+            final long elapsedMs = Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+            rowsPerSecond = elapsedMs > 0 ? rows * 1000.0 / elapsedMs : 0;
+        }
+
+        return new JobDto(
+                id,
+                type.name(),
+                status.name(),
+                tickers,
+                pagesDone.get(),
+                pagesTotal.get(),
+                rows,
+                rowsPerSecond,
+                submittedAt,
+                started,
+                finished,
+                error,
+                results
+        );
+    }
+}
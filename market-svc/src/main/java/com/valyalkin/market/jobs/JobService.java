@@ -0,0 +1,141 @@
+package com.valyalkin.market.jobs;
+
+import com.valyalkin.market.config.exception.NotFoundException;
+import com.valyalkin.market.config.exception.ServiceUnavailableException;
+import com.valyalkin.market.dividends.DividendsService;
+import com.valyalkin.market.dto.JobDto;
+import com.valyalkin.market.eod.EndOfDayDataService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs end of day and dividends backfills in the background. Jobs are executed on a bounded pool,
+ * a job fans its tickers out through the ingestion executor. Job state is kept in memory only.
+ */
+@Service
+public class JobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+
+    private final EndOfDayDataService endOfDayDataService;
+    private final DividendsService dividendsService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Duration rejectedRetryAfter;
+
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    public JobService(
+            EndOfDayDataService endOfDayDataService,
+            DividendsService dividendsService,
+            @Value("${data.jobs.pool-size:2}") int poolSize,
+            @Value("${data.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${data.jobs.retention:PT24H}") Duration retention,
+            @Value("${data.jobs.rejected-retry-after:PT30S}") Duration rejectedRetryAfter,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.endOfDayDataService = endOfDayDataService;
+        this.dividendsService = dividendsService;
+        this.retention = retention;
+        this.rejectedRetryAfter = rejectedRetryAfter;
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                // The pool size still bounds the jobs running at the same time
+                virtualThreads
+                        ? Thread.ofVirtual().name("ingestion-job-", 0).factory()
+                        : Thread.ofPlatform().name("ingestion-job-", 0).factory()
+        );
+    }
+
+    public JobDto submit(JobType type, List<String> tickers) {
+        evictFinishedJobs();
+
+        final var job = new Job(type, tickers);
+        jobs.put(job.id(), job);
+
+        try {
+            job.submitted(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            throw new ServiceUnavailableException("Too many jobs are queued, try again later", rejectedRetryAfter);
+        }
+
+        logger.info("Submitted {} job {} for {}", type, job.id(), tickers);
+        return job.toDto();
+    }
+
+    public JobDto get(UUID id) {
+        return find(id).toDto();
+    }
+
+    public JobDto cancel(UUID id) {
+        final var job = find(id);
+        job.cancel();
+        logger.info("Cancelled job {}", id);
+        return job.toDto();
+    }
+
+    private Job find(UUID id) {
+        final var job = jobs.get(id);
+
+        if (job == null) {
+            throw new NotFoundException(String.format("No job found with id %s", id));
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        if (!job.start()) {
+            return;
+        }
+
+        try {
+            final var results = switch (job.type()) {
+                case EOD -> endOfDayDataService.processEodData(job.tickers(), job);
+                case DIVIDENDS -> dividendsService.processDividends(job.tickers(), job);
+            };
+            job.complete(results);
+        } catch (CancellationException e) {
+            logger.info("Job {} stopped: {}", job.id(), e.getMessage());
+            // Only a job stopped by something else than its own cancellation ends up failed
+            job.fail(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Job {} failed", job.id(), e);
+            job.fail(e.getMessage());
+        }
+
+        logger.info("Job {} finished with status {}", job.id(), job.status());
+    }
+
+    private void evictFinishedJobs() {
+        final var threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(
+                (job) -> job.status().isFinished() && job.finishedAt() != null && job.finishedAt().isBefore(threshold)
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(Job::cancel);
+        executor.shutdown();
+    }
+}
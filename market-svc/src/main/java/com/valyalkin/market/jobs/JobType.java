@@ -0,0 +1,6 @@
+package com.valyalkin.market.jobs;
+
+public enum JobType {
+    EOD,
+    DIVIDENDS
+}
@@ -0,0 +1,27 @@
+package com.valyalkin.market.providers;
+
+import com.valyalkin.market.providers.model.EndOfDatePage;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link MarketDataProvider} for pages requested ahead of time. No thread
+ * is held while a request is in flight, the future completes with the parsed page or fails with
+ * the same exceptions the blocking provider throws.
+ */
+public interface AsyncMarketDataProvider {
+
+    /**
+     * Fetches one page of end of day prices, newest date first.
+     */
+    CompletableFuture<EndOfDatePage> endOfDayData(String tickers, LocalDate dateFrom, int offset);
+
+    /**
+     * Fetches one page of end of day prices for several tickers at once, oldest date first,
+     * with the rows of the page grouped by ticker.
+     */
+    CompletableFuture<EndOfDayBatchPage> endOfDayData(List<String> tickers, LocalDate dateFrom, int offset);
+}
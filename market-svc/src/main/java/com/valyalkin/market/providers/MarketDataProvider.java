@@ -1,13 +1,48 @@
 package com.valyalkin.market.providers;
 
+import com.valyalkin.market.providers.model.Dividend;
 import com.valyalkin.market.providers.model.DividendsPage;
 import com.valyalkin.market.providers.model.EndOfDatePage;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.providers.model.Pagination;
 import com.valyalkin.market.providers.model.TickerDto;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface MarketDataProvider {
     TickerDto tickerData(String ticker);
-    EndOfDatePage endOfDayData(String tickers, LocalDate dateFrom, int offset);
-    DividendsPage dividends(String ticker, LocalDate dateFrom, int offset);
+
+    /**
+     * Fetches one page of end of day prices, handing every row to the sink while the response is
+     * read, and returns the pagination of the page.
+     */
+    Pagination endOfDayData(String tickers, LocalDate dateFrom, int offset, Consumer<EndOfDayPrice> sink);
+
+    default EndOfDatePage endOfDayData(String tickers, LocalDate dateFrom, int offset) {
+        final List<EndOfDayPrice> eod = new ArrayList<>();
+        final var pagination = endOfDayData(tickers, dateFrom, offset, eod::add);
+        return new EndOfDatePage(eod, pagination);
+    }
+
+    /**
+     * Fetches one page of end of day prices for several tickers at once, oldest date first,
+     * with the rows of the page grouped by ticker.
+     */
+    EndOfDayBatchPage endOfDayData(List<String> tickers, LocalDate dateFrom, int offset);
+
+    /**
+     * Fetches one page of dividends, handing every row to the sink while the response is read,
+     * and returns the pagination of the page.
+     */
+    Pagination dividends(String ticker, LocalDate dateFrom, int offset, Consumer<Dividend> sink);
+
+    default DividendsPage dividends(String ticker, LocalDate dateFrom, int offset) {
+        final List<Dividend> dividends = new ArrayList<>();
+        final var pagination = dividends(ticker, dateFrom, offset, dividends::add);
+        return new DividendsPage(dividends, pagination);
+    }
 }
@@ -0,0 +1,37 @@
+package com.valyalkin.market.providers;
+
+import com.valyalkin.market.config.exception.SystemException;
+
+import java.time.Duration;
+
+/**
+ * Error response of the market data provider. Keeps the status and the {@code Retry-After} delay,
+ * if the provider sent one, so that callers can tell throttling and outages from bad requests.
+ */
+public class MarketDataProviderException extends SystemException {
+
+    private final int status;
+    private final Duration retryAfter;
+
+    public MarketDataProviderException(String message, int status, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isRateLimited() {
+        return status == 429;
+    }
+
+    public boolean isRetryable() {
+        return isRateLimited() || status >= 500;
+    }
+}
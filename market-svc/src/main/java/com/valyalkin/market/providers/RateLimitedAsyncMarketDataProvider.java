@@ -0,0 +1,209 @@
+package com.valyalkin.market.providers;
+
+import com.valyalkin.market.providers.marketstack.AsyncMarketStackProvider;
+import com.valyalkin.market.providers.model.EndOfDatePage;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.ratelimit.AdaptiveConcurrencyLimiter;
+import com.valyalkin.market.providers.ratelimit.Backoff;
+import com.valyalkin.market.providers.ratelimit.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the non-blocking calls within the quota shared with {@link RateLimitedMarketDataProvider}.
+ * A request takes a slot from the same adaptive concurrency limit, waiting in its queue without
+ * holding a thread, then reserves a permit from the same token bucket and is sent once the permit
+ * is due. Throttled, failed upstream and timed out requests are retried the same way as blocking
+ * ones, lowering the limit and pausing the bucket for every caller.
+ * <p>
+ * Cancelling a returned future drops the request while it is queued or waiting for a permit or a
+ * retry, e.g. pages fetched ahead of an ingestion that failed.
+ */
+@Primary
+@Component
+public class RateLimitedAsyncMarketDataProvider implements AsyncMarketDataProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitedAsyncMarketDataProvider.class);
+
+    private final AsyncMarketDataProvider delegate;
+    private final TokenBucket tokenBucket;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final int maxAttempts;
+    private final Backoff backoff;
+
+    public RateLimitedAsyncMarketDataProvider(
+            AsyncMarketStackProvider delegate,
+            TokenBucket tokenBucket,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            @Value("${data.marketstack.rate-limit.max-attempts:5}") int maxAttempts,
+            @Value("${data.marketstack.rate-limit.base-backoff:PT0.5S}") Duration baseBackoff,
+            @Value("${data.marketstack.rate-limit.max-backoff:PT30S}") Duration maxBackoff
+    ) {
+        this.delegate = delegate;
+        this.tokenBucket = tokenBucket;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxAttempts = maxAttempts;
+        this.backoff = new Backoff(baseBackoff, maxBackoff);
+    }
+
+    @Override
+    public CompletableFuture<EndOfDatePage> endOfDayData(String tickers, LocalDate dateFrom, int offset) {
+        return call(
+                "end of day " + tickers + " at offset " + offset,
+                () -> delegate.endOfDayData(tickers, dateFrom, offset)
+        );
+    }
+
+    @Override
+    public CompletableFuture<EndOfDayBatchPage> endOfDayData(List<String> tickers, LocalDate dateFrom, int offset) {
+        return call(
+                "end of day " + tickers + " at offset " + offset,
+                () -> delegate.endOfDayData(tickers, dateFrom, offset)
+        );
+    }
+
+    public int inFlight() {
+        return concurrencyLimiter.inFlight();
+    }
+
+    private <T> CompletableFuture<T> call(String description, Supplier<CompletableFuture<T>> request) {
+        final var call = new Call<>(description, request);
+        call.attempt(1);
+        return call.result;
+    }
+
+    /**
+     * One request with its retries. Cancelling the future handed to the caller also cancels the
+     * attempt waiting for a slot or a permit and the retry waiting for its delay, so neither is
+     * sent anymore.
+     */
+    private class Call<T> {
+
+        private final String description;
+        private final Supplier<CompletableFuture<T>> request;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile CompletableFuture<?> pending;
+
+        Call(String description, Supplier<CompletableFuture<T>> request) {
+            this.description = description;
+            this.request = () -> result.isDone()
+                    ? CompletableFuture.failedFuture(new CancellationException(description + " is cancelled"))
+                    : request.get();
+            this.result.whenComplete((value, error) -> {
+                final var stage = pending;
+                if (result.isCancelled() && stage != null) {
+                    stage.cancel(false);
+                }
+            });
+        }
+
+        void attempt(int number) {
+            if (result.isDone()) {
+                return;
+            }
+
+            final var slot = concurrencyLimiter.acquireAsync();
+            await(slot);
+            slot.thenRun(() -> send(number));
+        }
+
+        /**
+         * Sends the attempt once its permit is due, holding the slot until the response arrived.
+         * An attempt cancelled while waiting for the permit is not sent and gives its slot back.
+         */
+        private void send(int number) {
+            final long[] start = {System.nanoTime()};
+            final CompletableFuture<T> attempt = after(
+                    tokenBucket.reserve(),
+                    TimeUnit.NANOSECONDS,
+                    () -> {
+                        start[0] = System.nanoTime();
+                        return request.get();
+                    }
+            );
+            attempt.whenComplete((value, error) -> {
+                RateLimitedMarketDataProvider.release(concurrencyLimiter, start[0], error == null ? null : unwrap(error));
+                if (error == null) {
+                    result.complete(value);
+                } else if (!result.isDone()) {
+                    retry(number, unwrap(error));
+                }
+            });
+        }
+
+        private void retry(int number, Throwable failure) {
+            final Duration retryAfter;
+
+            if (failure instanceof MarketDataProviderException e && e.isRetryable()) {
+                retryAfter = e.retryAfter();
+            } else if (failure instanceof ResourceAccessException) {
+                retryAfter = null;
+            } else {
+                result.completeExceptionally(failure);
+                return;
+            }
+
+            if (number >= maxAttempts) {
+                result.completeExceptionally(failure);
+                return;
+            }
+
+            final var delay = backoff.delay(number, retryAfter);
+            if (retryAfter != null) {
+                tokenBucket.pause(retryAfter);
+            }
+
+            logger.warn("Retrying {} in {} ms after attempt {} failed: {}", description, delay.toMillis(), number, failure.getMessage());
+            await(CompletableFuture.runAsync(
+                    () -> attempt(number + 1),
+                    CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+            ));
+        }
+
+        /**
+         * Remembers the stage the call waits on, cancelling it right away when the caller already
+         * cancelled the call.
+         */
+        private void await(CompletableFuture<?> stage) {
+            pending = stage;
+            if (result.isCancelled()) {
+                stage.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Starts the request after the delay without holding a thread while waiting.
+     */
+    private static <T> CompletableFuture<T> after(long delay, TimeUnit unit, Supplier<CompletableFuture<T>> request) {
+        if (delay <= 0) {
+            try {
+                return request.get();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        final Executor delayed = CompletableFuture.delayedExecutor(delay, unit);
+        return CompletableFuture.supplyAsync(request, delayed).thenCompose(Function.identity());
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,177 @@
+package com.valyalkin.market.providers;
+
+import com.valyalkin.market.config.exception.SystemException;
+import com.valyalkin.market.providers.marketstack.MarketStackProvider;
+import com.valyalkin.market.providers.model.Dividend;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.providers.model.Pagination;
+import com.valyalkin.market.providers.model.TickerDto;
+import com.valyalkin.market.providers.ratelimit.AdaptiveConcurrencyLimiter;
+import com.valyalkin.market.providers.ratelimit.Backoff;
+import com.valyalkin.market.providers.ratelimit.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the calls to the market data provider within its quota. Every request takes a permit from
+ * a token bucket and a slot from an adaptive concurrency limit, both shared with
+ * {@link RateLimitedAsyncMarketDataProvider}. Throttled, failed upstream and
+ * timed out requests are retried with jittered exponential backoff, honoring {@code Retry-After}.
+ * A throttled response also pauses the bucket, so other threads back off too.
+ */
+@Primary
+@Component
+public class RateLimitedMarketDataProvider implements MarketDataProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitedMarketDataProvider.class);
+
+    private final MarketDataProvider delegate;
+    private final TokenBucket tokenBucket;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final int maxAttempts;
+    private final Backoff backoff;
+
+    public RateLimitedMarketDataProvider(
+            MarketStackProvider delegate,
+            TokenBucket tokenBucket,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            @Value("${data.marketstack.rate-limit.max-attempts:5}") int maxAttempts,
+            @Value("${data.marketstack.rate-limit.base-backoff:PT0.5S}") Duration baseBackoff,
+            @Value("${data.marketstack.rate-limit.max-backoff:PT30S}") Duration maxBackoff
+    ) {
+        this.delegate = delegate;
+        this.tokenBucket = tokenBucket;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxAttempts = maxAttempts;
+        this.backoff = new Backoff(baseBackoff, maxBackoff);
+    }
+
+    @Override
+    public TickerDto tickerData(String ticker) {
+        return call("tickers " + ticker, (attempt) -> delegate.tickerData(ticker));
+    }
+
+    @Override
+    public Pagination endOfDayData(String tickers, LocalDate dateFrom, int offset, Consumer<EndOfDayPrice> sink) {
+        return call(
+                "end of day " + tickers + " at offset " + offset,
+                (attempt) -> delegate.endOfDayData(tickers, dateFrom, offset, attempt.track(sink))
+        );
+    }
+
+    @Override
+    public EndOfDayBatchPage endOfDayData(List<String> tickers, LocalDate dateFrom, int offset) {
+        return call(
+                "end of day " + tickers + " at offset " + offset,
+                (attempt) -> delegate.endOfDayData(tickers, dateFrom, offset)
+        );
+    }
+
+    @Override
+    public Pagination dividends(String ticker, LocalDate dateFrom, int offset, Consumer<Dividend> sink) {
+        return call(
+                "dividends " + ticker + " at offset " + offset,
+                (attempt) -> delegate.dividends(ticker, dateFrom, offset, attempt.track(sink))
+        );
+    }
+
+    public int concurrencyLimit() {
+        return concurrencyLimiter.limit();
+    }
+
+    private <T> T call(String description, Request<T> request) {
+        for (int number = 1; ; number++) {
+            final var attempt = new Attempt();
+
+            tokenBucket.acquire();
+            concurrencyLimiter.acquire();
+            final long start = System.nanoTime();
+
+            Duration retryAfter = null;
+            RuntimeException failure;
+
+            try {
+                final T result = request.execute(attempt);
+                release(concurrencyLimiter, start, null);
+                return result;
+            } catch (MarketDataProviderException e) {
+                release(concurrencyLimiter, start, e);
+                if (!e.isRetryable()) {
+                    throw e;
+                }
+                failure = e;
+                retryAfter = e.retryAfter();
+            } catch (ResourceAccessException e) {
+                release(concurrencyLimiter, start, e);
+                failure = e;
+            } catch (RuntimeException e) {
+                release(concurrencyLimiter, start, e);
+                throw e;
+            }
+
+            // Rows already handed to the sink cannot be taken back, such a request is not repeated
+            if (number >= maxAttempts || attempt.rows > 0) {
+                throw failure;
+            }
+
+            final var delay = backoff.delay(number, retryAfter);
+            if (retryAfter != null) {
+                tokenBucket.pause(retryAfter);
+            }
+
+            logger.warn("Retrying {} in {} ms after attempt {} failed: {}", description, delay.toMillis(), number, failure.getMessage());
+            sleep(delay);
+        }
+    }
+
+    /**
+     * Releases the slot of a request started at {@code startNanos}. Throttled and timed out requests
+     * lower the limit, other failures say nothing about the load of the provider.
+     */
+    static void release(AdaptiveConcurrencyLimiter concurrencyLimiter, long startNanos, Throwable failure) {
+        if (failure == null) {
+            concurrencyLimiter.onSuccess(System.nanoTime() - startNanos);
+        } else if (failure instanceof MarketDataProviderException e && e.isRateLimited()
+                || failure instanceof ResourceAccessException) {
+            concurrencyLimiter.onOverload();
+        } else {
+            concurrencyLimiter.onIgnore();
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("Interrupted while waiting to retry a market data request");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request<T> {
+        T execute(Attempt attempt);
+    }
+
+    private static class Attempt {
+        private int rows;
+
+        <R> Consumer<R> track(Consumer<R> sink) {
+            return (row) -> {
+                rows++;
+                sink.accept(row);
+            };
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.valyalkin.market.providers.marketstack;
+
+import com.valyalkin.market.config.rest.DiskResponseCacheInterceptor;
+import com.valyalkin.market.config.rest.GzipResponseInterceptor;
+import com.valyalkin.market.config.rest.RequestLatencyInterceptor;
+import com.valyalkin.market.providers.AsyncMarketDataProvider;
+import com.valyalkin.market.providers.model.EndOfDatePage;
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Marketstack on the {@link HttpClient} of the blocking client, sending requests without holding a
+ * thread while they are in flight. Responses are requested gzip compressed and recorded in the
+ * latency metrics like the blocking ones, and go through the same disk cache.
+ * <p>
+ * A response completes as soon as its headers arrived. Its body is parsed from the stream as it
+ * comes in, on a small pool of its own, so the client only reads as far ahead of the parser as its
+ * flow control window allows.
+ */
+@Component
+public class AsyncMarketStackProvider implements AsyncMarketDataProvider {
+
+    private final HttpClient client;
+    private final MarketStackApi api;
+    private final RequestLatencyInterceptor requestLatency;
+    private final DiskResponseCacheInterceptor responseCache;
+    private final Duration readTimeout;
+    private final ExecutorService parsers;
+    private final MarketStackResponseParser responseParser = new MarketStackResponseParser();
+
+    public AsyncMarketStackProvider(
+            HttpClient marketStackHttpClient,
+            MarketStackApi api,
+            RequestLatencyInterceptor requestLatency,
+            ObjectProvider<DiskResponseCacheInterceptor> responseCache,
+            @Value("${data.marketstack.http.read-timeout:PT30S}") Duration readTimeout,
+            @Value("${data.marketstack.http.async-threads:2}") int threads
+    ) {
+        this.client = marketStackHttpClient;
+        this.api = api;
+        this.requestLatency = requestLatency;
+        this.responseCache = responseCache.getIfAvailable();
+        this.readTimeout = readTimeout;
+        this.parsers = Executors.newFixedThreadPool(
+                threads,
+                Thread.ofPlatform().name("marketstack-async-", 0).daemon().factory()
+        );
+    }
+
+    @Override
+    public CompletableFuture<EndOfDatePage> endOfDayData(String tickers, LocalDate dateFrom, int offset) {
+        return get(api.endOfDayUri(tickers, dateFrom, offset), (body) -> {
+            final List<EndOfDayPrice> eod = new ArrayList<>();
+            final var pagination = responseParser.endOfDayPage(body, eod::add);
+            return new EndOfDatePage(eod, pagination);
+        });
+    }
+
+    @Override
+    public CompletableFuture<EndOfDayBatchPage> endOfDayData(List<String> tickers, LocalDate dateFrom, int offset) {
+        return get(api.endOfDayUri(tickers, dateFrom, offset), (body) -> {
+            final var batch = new EndOfDayBatchCollector(tickers);
+            return batch.page(responseParser.endOfDayPage(body, batch));
+        });
+    }
+
+    private <T> CompletableFuture<T> get(URI uri, BodyReader<T> reader) {
+        if (responseCache != null) {
+            final var cached = responseCache.lookup(uri);
+            if (cached != null) {
+                return CompletableFuture.supplyAsync(() -> read(uri, reader, new ByteArrayInputStream(cached)), parsers);
+            }
+        }
+
+        final var request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT_ENCODING, GzipResponseInterceptor.GZIP)
+                .GET()
+                .build();
+        final long start = System.nanoTime();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .handle((response, error) -> {
+                    requestLatency.record(
+                            uri,
+                            response == null ? "IO_ERROR" : String.valueOf(response.statusCode()),
+                            System.nanoTime() - start
+                    );
+
+                    if (error != null) {
+                        final var cause = error instanceof CompletionException ? error.getCause() : error;
+                        throw ioError(uri, cause instanceof IOException io ? io : new IOException(cause));
+                    }
+                    return response;
+                })
+                .thenApplyAsync((response) -> read(uri, reader, response), parsers);
+    }
+
+    private <T> T read(URI uri, BodyReader<T> reader, HttpResponse<InputStream> response) {
+        try (var body = GzipResponseInterceptor.decode(
+                response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null),
+                response.body()
+        )) {
+            if (response.statusCode() >= 400) {
+                throw MarketStackApi.apiCallFailed(
+                        response.statusCode(),
+                        body.readAllBytes(),
+                        response.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null)
+                );
+            }
+            if (responseCache == null || response.statusCode() != 200) {
+                return reader.read(body);
+            }
+
+            // The cache keeps the whole body, the page is parsed from the copy
+            final byte[] content = body.readAllBytes();
+            responseCache.store(uri, content);
+            return reader.read(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            throw ioError(uri, e);
+        }
+    }
+
+    private <T> T read(URI uri, BodyReader<T> reader, InputStream body) {
+        try {
+            return reader.read(body);
+        } catch (IOException e) {
+            throw ioError(uri, e);
+        }
+    }
+
+    private static ResourceAccessException ioError(URI uri, IOException e) {
+        return new ResourceAccessException("I/O error on GET request for " + uri.getPath() + ": " + e.getMessage(), e);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+}
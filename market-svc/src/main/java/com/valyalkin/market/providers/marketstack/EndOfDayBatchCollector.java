@@ -0,0 +1,35 @@
+package com.valyalkin.market.providers.marketstack;
+
+import com.valyalkin.market.providers.model.EndOfDayBatchPage;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.providers.model.Pagination;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Groups the rows of a page of several tickers by ticker while the page is read. Every requested
+ * ticker gets a list, also when the page has no rows for it.
+ */
+class EndOfDayBatchCollector implements Consumer<EndOfDayPrice> {
+
+    private final Map<String, List<EndOfDayPrice>> eod = new LinkedHashMap<>();
+    private int rows;
+
+    EndOfDayBatchCollector(List<String> tickers) {
+        tickers.forEach((ticker) -> eod.put(ticker, new ArrayList<>()));
+    }
+
+    @Override
+    public void accept(EndOfDayPrice price) {
+        eod.computeIfAbsent(price.ticker(), (symbol) -> new ArrayList<>()).add(price);
+        rows++;
+    }
+
+    EndOfDayBatchPage page(Pagination pagination) {
+        return new EndOfDayBatchPage(eod, rows, pagination);
+    }
+}
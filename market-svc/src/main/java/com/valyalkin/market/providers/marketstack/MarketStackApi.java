@@ -0,0 +1,116 @@
+package com.valyalkin.market.providers.marketstack;
+
+import com.valyalkin.market.providers.MarketDataProviderException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Requests and errors of the Marketstack API, shared by the blocking and the non-blocking client
+ * so both ask for the same pages and fail the same way.
+ */
+@Component
+public class MarketStackApi {
+
+    @Value("${data.marketstack.url}")
+    private String marketStackUrl;
+    @Value("${data.marketstack.apikey}")
+    private String marketStackApiKey;
+    @Value("${data.marketstack.eod-page-size:100}")
+    private int eodPageSize;
+
+    public URI tickerUri(String ticker) {
+        return UriComponentsBuilder
+                .fromUriString(marketStackUrl + "/v1/tickers/" + ticker)
+                .queryParam("access_key", marketStackApiKey)
+                .build()
+                .toUri();
+    }
+
+    /**
+     * One page of end of day prices, newest date first.
+     */
+    public URI endOfDayUri(String tickers, LocalDate dateFrom, int offset) {
+        return endOfDayUri(tickers, dateFrom, offset, "DESC");
+    }
+
+    /**
+     * One page of end of day prices of several tickers, oldest date first.
+     */
+    public URI endOfDayUri(List<String> tickers, LocalDate dateFrom, int offset) {
+        // Ascending order keeps the latest stored date of every ticker a valid resume point
+        return endOfDayUri(String.join(",", tickers), dateFrom, offset, "ASC");
+    }
+
+    public URI dividendsUri(String ticker, LocalDate dateFrom, int offset) {
+        return UriComponentsBuilder
+                .fromUriString(marketStackUrl + "/v2/dividends")
+                .queryParam("access_key", marketStackApiKey)
+                .queryParam("symbols", ticker)
+                .queryParam("date_from", dateFrom.toString())
+                .queryParam("limit", 1000)
+                .queryParam("offset", offset)
+                .build()
+                .toUri();
+    }
+
+    private URI endOfDayUri(String symbols, LocalDate dateFrom, int offset, String sort) {
+        return UriComponentsBuilder
+                .fromUriString(marketStackUrl + "/v1/eod")
+                .queryParam("access_key", marketStackApiKey)
+                .queryParam("symbols", symbols)
+                .queryParam("date_from", dateFrom.toString())
+                .queryParam("sort", sort)
+                .queryParam("limit", eodPageSize)
+                .queryParam("offset", offset)
+                .build()
+                .toUri();
+    }
+
+    /**
+     * Maps an error response to the exception both clients throw.
+     */
+    public static MarketDataProviderException apiCallFailed(int statusCode, byte[] body, String retryAfter) {
+        return new MarketDataProviderException(
+                String.format(
+                        "Marketstack api call failed with error %d Details: %s",
+                        statusCode,
+                        new String(body, StandardCharsets.UTF_8)
+                ),
+                statusCode,
+                retryAfter(retryAfter)
+        );
+    }
+
+    /**
+     * Parses {@code Retry-After}, given either in seconds or as an HTTP date.
+     */
+    static Duration retryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, try the date form
+        }
+
+        try {
+            final var retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            final var delay = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
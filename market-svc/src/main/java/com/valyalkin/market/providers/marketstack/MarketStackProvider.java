@@ -2,57 +2,42 @@ package com.valyalkin.market.providers.marketstack;
 
 import com.valyalkin.market.config.exception.SystemException;
 import com.valyalkin.market.providers.*;
-import com.valyalkin.market.providers.marketstack.model.dividend.MarketStackDividendsData;
-import com.valyalkin.market.providers.marketstack.model.eod.MarketStackEndOfDayPrices;
 import com.valyalkin.market.providers.marketstack.model.ticker.MarketStackTicker;
 import com.valyalkin.market.providers.model.*;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Component
 public class MarketStackProvider implements MarketDataProvider {
 
     private final RestClient client;
-    @Value("${data.marketstack.url}")
-    private String marketStackUrl;
-    @Value("${data.marketstack.apikey}")
-    private String marketStackApiKey;
+    private final MarketStackApi api;
+    private final MarketStackResponseParser responseParser = new MarketStackResponseParser();
 
-    public MarketStackProvider(RestClient client) {
+    public MarketStackProvider(RestClient client, MarketStackApi api) {
         this.client = client;
+        this.api = api;
     }
 
 
     @Override
     public TickerDto tickerData(String ticker) {
-        final String uri = UriComponentsBuilder
-                .fromUriString(marketStackUrl + "/v1/tickers/" + ticker)
-                .queryParam("access_key", marketStackApiKey)
-                .toUriString();
-
         final var marketStackTicker = client.get()
-                .uri(uri)
+                .uri(api.tickerUri(ticker))
                 .retrieve()
                 .onStatus(
                         HttpStatusCode::isError,
                         ((request, response) -> {
-                            var statusCode = response.getStatusCode().value();
-                            var details = new String(
-                                    response.getBody().readAllBytes(), StandardCharsets.UTF_8
-                            );
-                            throw new SystemException(
-                                    String.format(
-                                            "Marketstack api call failed with error %d Details: %s",
-                                            statusCode,
-                                            details
-                                    )
-                            );
+                            throw apiCallFailed(response);
                         })
 
                 ).body(MarketStackTicker.class);
@@ -74,111 +59,44 @@ public class MarketStackProvider implements MarketDataProvider {
     }
 
     @Override
-    public EndOfDatePage endOfDayData(String tickers, LocalDate dateFrom, int offset) {
-        String uri = UriComponentsBuilder
-                .fromUriString(marketStackUrl + "/v1/eod")
-                .queryParam("access_key", marketStackApiKey)
-                .queryParam("symbols", tickers)
-                .queryParam("date_from", dateFrom.toString())
-                .queryParam("limit", 100)
-                .queryParam("offset", offset)
-                .toUriString();
-
-        var result = client.get()
-                .uri(uri)
-                .retrieve()
-                .onStatus(
-                        HttpStatusCode::isError,
-                        ((request, response) -> {
-                            var statusCode = response.getStatusCode().value();
-                            var details = new String(
-                                    response.getBody().readAllBytes(),
-                                    StandardCharsets.UTF_8
-                            );
-                            throw new SystemException(
-                                    String.format(
-                                            "Marketstack api call failed with error %d Details: %s",
-                                            statusCode,
-                                            details
-                                    )
-                            );
-                        })
-
-                ).body(MarketStackEndOfDayPrices.class);
-
-        if (result != null) {
-            return new EndOfDatePage(
-                    result.data().stream().map(
-                            (marketStackEndOfDayData -> new EndOfDayPrice(
-                                    marketStackEndOfDayData.close(),
-                                    marketStackEndOfDayData.symbol(),
-                                    marketStackEndOfDayData.exchange(),
-                                    marketStackEndOfDayData.date()
-                            ))
-                    ).toList(),
-                    new Pagination(
-                            result.pagination().limit(),
-                            result.pagination().offset(),
-                            result.pagination().count(),
-                            result.pagination().total()
-                    )
-            );
-        } else {
-            throw new SystemException("Not able to fetch the data from marketstack");
-        }
+    public Pagination endOfDayData(String tickers, LocalDate dateFrom, int offset, Consumer<EndOfDayPrice> sink) {
+        return fetchEndOfDayData(api.endOfDayUri(tickers, dateFrom, offset), sink);
     }
 
     @Override
-    public DividendsPage dividends(String ticker, LocalDate dateFrom, int offset) {
-        String uri = UriComponentsBuilder
-                .fromUriString(marketStackUrl + "/v2/dividends")
-                .queryParam("access_key", marketStackApiKey)
-                .queryParam("symbols", ticker)
-                .queryParam("date_from", dateFrom.toString())
-                .queryParam("limit", 1000)
-                .queryParam("offset", offset)
-                .toUriString();
+    public EndOfDayBatchPage endOfDayData(List<String> tickers, LocalDate dateFrom, int offset) {
+        final var batch = new EndOfDayBatchCollector(tickers);
+        return batch.page(fetchEndOfDayData(api.endOfDayUri(tickers, dateFrom, offset), batch));
+    }
 
-        var result = client.get()
+    private Pagination fetchEndOfDayData(URI uri, Consumer<EndOfDayPrice> sink) {
+        return client.get()
                 .uri(uri)
-                .retrieve()
-                .onStatus(
-                        HttpStatusCode::isError,
-                        ((request, response) -> {
-                            var statusCode = response.getStatusCode().value();
-                            var details = new String(
-                                    response.getBody().readAllBytes(),
-                                    StandardCharsets.UTF_8
-                            );
-                            throw new SystemException(
-                                    String.format(
-                                            "Marketstack api call failed with error %d Details: %s",
-                                            statusCode,
-                                            details
-                                    )
-                            );
-                        })
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw apiCallFailed(response);
+                    }
+                    return responseParser.endOfDayPage(response.getBody(), sink);
+                });
+    }
 
-                ).body(MarketStackDividendsData.class);
+    @Override
+    public Pagination dividends(String ticker, LocalDate dateFrom, int offset, Consumer<Dividend> sink) {
+        return client.get()
+                .uri(api.dividendsUri(ticker, dateFrom, offset))
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw apiCallFailed(response);
+                    }
+                    return responseParser.dividendsPage(response.getBody(), sink);
+                });
+    }
 
-        if (result != null) {
-            return new DividendsPage(
-                    result.data().stream().map(
-                            (dividend -> new Dividend(
-                                    dividend.date(),
-                                    dividend.dividend(),
-                                    dividend.symbol()
-                            ))
-                    ).toList(),
-                    new Pagination(
-                            result.pagination().limit(),
-                            result.pagination().offset(),
-                            result.pagination().count(),
-                            result.pagination().total()
-                    )
-            );
-        } else {
-            throw new SystemException("Not able to fetch the data from marketstack");
-        }
+    private static MarketDataProviderException apiCallFailed(ClientHttpResponse response) throws IOException {
+        return MarketStackApi.apiCallFailed(
+                response.getStatusCode().value(),
+                response.getBody().readAllBytes(),
+                response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)
+        );
     }
 }
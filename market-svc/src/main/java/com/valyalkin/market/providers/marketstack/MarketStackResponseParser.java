@@ -0,0 +1,143 @@
+package com.valyalkin.market.providers.marketstack;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.valyalkin.market.config.exception.SystemException;
+import com.valyalkin.market.providers.marketstack.config.CustomLocalDateDeserializer;
+import com.valyalkin.market.providers.model.Dividend;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import com.valyalkin.market.providers.model.Pagination;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Reads Marketstack pages from the token stream. Every row of {@code data} is handed to the sink as
+ * soon as it is read, without binding the page to the response model first. Fields that are not
+ * needed are skipped.
+ */
+public class MarketStackResponseParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CustomLocalDateDeserializer dateDeserializer = new CustomLocalDateDeserializer();
+
+    public Pagination endOfDayPage(InputStream body, Consumer<EndOfDayPrice> sink) throws IOException {
+        return page(body, (parser) -> sink.accept(endOfDayPrice(parser)));
+    }
+
+    public Pagination dividendsPage(InputStream body, Consumer<Dividend> sink) throws IOException {
+        return page(body, (parser) -> sink.accept(dividend(parser)));
+    }
+
+    private Pagination page(InputStream body, RowReader rowReader) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SystemException("Unexpected marketstack response, expected an object");
+            }
+
+            Pagination pagination = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+
+                if ("pagination".equals(field) && value == JsonToken.START_OBJECT) {
+                    pagination = pagination(parser);
+                } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        rowReader.read(parser);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (pagination == null) {
+                throw new SystemException("Unexpected marketstack response, pagination is missing");
+            }
+
+            return pagination;
+        }
+    }
+
+    private static Pagination pagination(JsonParser parser) throws IOException {
+        int limit = 0;
+        int offset = 0;
+        int count = 0;
+        int total = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "limit" -> limit = parser.getValueAsInt();
+                case "offset" -> offset = parser.getValueAsInt();
+                case "count" -> count = parser.getValueAsInt();
+                case "total" -> total = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new Pagination(limit, offset, count, total);
+    }
+
+    private EndOfDayPrice endOfDayPrice(JsonParser parser) throws IOException {
+        BigDecimal close = null;
+        String symbol = null;
+        String exchange = null;
+        LocalDate date = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (field) {
+                case "close" -> close = parser.getDecimalValue();
+                case "symbol" -> symbol = parser.getText();
+                case "exchange" -> exchange = parser.getText();
+                case "date" -> date = dateDeserializer.deserialize(parser, null);
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new EndOfDayPrice(close, symbol, exchange, date);
+    }
+
+    private Dividend dividend(JsonParser parser) throws IOException {
+        LocalDate date = null;
+        BigDecimal dividend = null;
+        String symbol = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (field) {
+                case "date" -> date = dateDeserializer.deserialize(parser, null);
+                case "dividend" -> dividend = parser.getDecimalValue();
+                case "symbol" -> symbol = parser.getText();
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new Dividend(date, dividend, symbol);
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+        void read(JsonParser parser) throws IOException;
+    }
+}
@@ -1,22 +1,133 @@
 package com.valyalkin.market.providers.marketstack.config;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 
 import java.io.IOException;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Reads the date of a Marketstack timestamp such as {@code 2024-12-16T00:00:00+0000} or of a plain
+ * {@code 2024-12-16}. Text of exactly one of these shapes is read from the parser buffer without
+ * creating a String, the time and offset are checked but not kept, recently seen dates are reused.
+ * Anything else goes through the formatter. Text that is not a valid date in either way fails with
+ * an {@link InvalidFormatException}.
+ */
 public class CustomLocalDateDeserializer extends JsonDeserializer<LocalDate> {
 
     private static final DateTimeFormatter formatter =
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
 
+    private static final int DATE_LENGTH = 10;
+    private static final int TIMESTAMP_LENGTH = 24;
+
+    // Direct mapped, consecutive days land in consecutive slots. Racy writes are fine, LocalDate is immutable
+    private static final int CACHE_SIZE = 1024;
+    private final LocalDate[] cache = new LocalDate[CACHE_SIZE];
+
     @Override
     public LocalDate deserialize(JsonParser jsonParser, DeserializationContext context)
             throws IOException {
-        String date = jsonParser.getText();
-        return LocalDate.parse(date, formatter); // Only date part will be extracted
+        if (jsonParser.hasToken(JsonToken.VALUE_STRING)) {
+            final int length = jsonParser.getTextLength();
+
+            if (length == DATE_LENGTH || length == TIMESTAMP_LENGTH) {
+                final char[] chars = jsonParser.getTextCharacters();
+                final int offset = jsonParser.getTextOffset();
+
+                final int year = digits(chars, offset, 4);
+                final int month = digits(chars, offset + 5, 2);
+                final int day = digits(chars, offset + 8, 2);
+
+                if (year >= 0 && month >= 0 && day >= 0 && chars[offset + 4] == '-' && chars[offset + 7] == '-'
+                        && (length == DATE_LENGTH || isTimeAndOffset(chars, offset + DATE_LENGTH))) {
+                    try {
+                        return date(year, month, day);
+                    } catch (DateTimeException e) {
+                        throw invalidDate(jsonParser, context, jsonParser.getText(), e.getMessage());
+                    }
+                }
+            }
+        }
+
+        final String date = jsonParser.getText();
+        try {
+            return date.length() > DATE_LENGTH ? LocalDate.parse(date, formatter) : LocalDate.parse(date);
+        } catch (DateTimeException e) {
+            throw invalidDate(jsonParser, context, date, e.getMessage());
+        }
+    }
+
+    private LocalDate date(int year, int month, int day) {
+        final int slot = (year * 372 + month * 31 + day) & (CACHE_SIZE - 1);
+        final LocalDate cached = cache[slot];
+
+        if (cached != null && cached.getDayOfMonth() == day && cached.getMonthValue() == month && cached.getYear() == year) {
+            return cached;
+        }
+
+        final LocalDate date = LocalDate.of(year, month, day);
+        cache[slot] = date;
+        return date;
+    }
+
+    /**
+     * Whether {@code THH:mm:ss+HHMM} starts at {@code from}, with every field in range.
+     */
+    private static boolean isTimeAndOffset(char[] chars, int from) {
+        final int hour = digits(chars, from + 1, 2);
+        final int minute = digits(chars, from + 4, 2);
+        final int second = digits(chars, from + 7, 2);
+        final int offsetHours = digits(chars, from + 10, 2);
+        final int offsetMinutes = digits(chars, from + 12, 2);
+
+        return chars[from] == 'T' && chars[from + 3] == ':' && chars[from + 6] == ':'
+                && (chars[from + 9] == '+' || chars[from + 9] == '-')
+                && hour >= 0 && hour < 24
+                && minute >= 0 && minute < 60
+                && second >= 0 && second < 60
+                && offsetHours >= 0 && offsetHours <= 18
+                && offsetMinutes >= 0 && offsetMinutes < 60;
+    }
+
+    /**
+     * The exception Jackson raises for a malformed value, also when called outside of a mapper.
+     */
+    private static JsonMappingException invalidDate(
+            JsonParser jsonParser,
+            DeserializationContext context,
+            String text,
+            String reason
+    ) {
+        if (context != null) {
+            return context.weirdStringException(text, LocalDate.class, reason);
+        }
+        return InvalidFormatException.from(
+                jsonParser,
+                String.format("Cannot deserialize value of type `%s` from String \"%s\": %s", LocalDate.class.getName(), text, reason),
+                text,
+                LocalDate.class
+        );
+    }
+
+    /**
+     * Value of {@code length} decimal digits starting at {@code from}, -1 if one of them is not a digit.
+     */
+    private static int digits(char[] chars, int from, int length) {
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            final int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
     }
 }
@@ -1,10 +1,13 @@
 package com.valyalkin.market.providers.marketstack.model.dividend;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.valyalkin.market.providers.marketstack.config.CustomLocalDateDeserializer;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 public record MarketStackDividend(
-        LocalDate date, // Record date
+        @JsonDeserialize(using = CustomLocalDateDeserializer.class) LocalDate date, // Record date
         BigDecimal dividend,
         String symbol
 ) {
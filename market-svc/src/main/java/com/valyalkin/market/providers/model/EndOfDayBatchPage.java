@@ -0,0 +1,11 @@
+package com.valyalkin.market.providers.model;
+
+import java.util.List;
+import java.util.Map;
+
+public record EndOfDayBatchPage(
+        Map<String, List<EndOfDayPrice>> eod, // Rows of the page grouped by ticker
+        int rows,
+        Pagination pagination
+) {
+}
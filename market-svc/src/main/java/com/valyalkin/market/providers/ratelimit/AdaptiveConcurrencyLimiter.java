@@ -0,0 +1,170 @@
+package com.valyalkin.market.providers.ratelimit;
+
+import com.valyalkin.market.config.exception.SystemException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the requests in flight with an AIMD limit. Every fast successful response raises the limit
+ * by {@code 1 / limit}, about one per round of requests. A throttled or slow response halves it,
+ * at most once per latency threshold so a burst of rejections counts as one signal.
+ * <p>
+ * Blocking callers wait for a slot on their thread, non-blocking ones get a future that completes
+ * once they hold one and queue without a thread. Both take slots from the same limit. A queued
+ * future that was cancelled in the meantime is skipped without taking a slot.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Queue<CompletableFuture<Void>> queued = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int initialLimit, int maxLimit, Duration latencyThreshold) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits have to satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    public void acquire() {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("Interrupted while waiting for a request slot");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a future completing once the caller holds a slot, without blocking. Cancel the future
+     * to give up waiting; once it completed, the slot has to be released like a blocking one.
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        final var slot = new CompletableFuture<Void>();
+
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                slot.complete(null);
+            } else {
+                queued.add(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return slot;
+    }
+
+    /**
+     * Releases a slot after a response, adjusting the limit by its latency.
+     */
+    public void onSuccess(long latencyNanos) {
+        release(latencyNanos > latencyThresholdNanos ? Signal.DECREASE : Signal.INCREASE);
+    }
+
+    /**
+     * Releases a slot after the provider rejected the request for exceeding its quota.
+     */
+    public void onOverload() {
+        release(Signal.DECREASE);
+    }
+
+    /**
+     * Releases a slot after a failure that says nothing about the load of the provider.
+     */
+    public void onIgnore() {
+        release(Signal.NONE);
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Signal signal) {
+        final List<CompletableFuture<Void>> granted = new ArrayList<>();
+
+        lock.lock();
+        try {
+            inFlight--;
+
+            switch (signal) {
+                case INCREASE -> limit = Math.min(maxLimit, limit + 1.0 / limit);
+                case DECREASE -> {
+                    final long now = System.nanoTime();
+                    if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                        limit = Math.max(minLimit, limit / 2);
+                        lastDecreaseNanos = now;
+                    }
+                }
+                case NONE -> {
+                }
+            }
+
+            // Queued callers are served first, blocked threads get the slots left over
+            while (inFlight < (int) limit && !queued.isEmpty()) {
+                final var slot = queued.poll();
+                if (!slot.isDone()) {
+                    inFlight++;
+                    granted.add(slot);
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        // Completed outside of the lock, the caller starts its request right away
+        for (var slot : granted) {
+            if (!slot.complete(null)) {
+                // Cancelled after it was taken from the queue
+                release(Signal.NONE);
+            }
+        }
+    }
+
+    private enum Signal {
+        INCREASE,
+        DECREASE,
+        NONE
+    }
+}
@@ -0,0 +1,29 @@
+package com.valyalkin.market.providers.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Full jitter exponential backoff between attempts of a market data request, never shorter than
+ * the delay the provider asked for.
+ */
+public class Backoff {
+
+    private final Duration base;
+    private final Duration max;
+
+    public Backoff(Duration base, Duration max) {
+        this.base = base;
+        this.max = max;
+    }
+
+    public Duration delay(int attempt, Duration retryAfter) {
+        final long ceiling = Math.min(max.toMillis(), base.toMillis() << Math.min(attempt - 1, 20));
+        final var jittered = Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+
+        if (retryAfter == null) {
+            return jittered;
+        }
+        return retryAfter.plus(jittered.dividedBy(4));
+    }
+}
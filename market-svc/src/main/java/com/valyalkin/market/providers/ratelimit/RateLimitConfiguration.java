@@ -0,0 +1,36 @@
+package com.valyalkin.market.providers.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class RateLimitConfiguration {
+
+    /**
+     * Request budget for the market data provider, shared by every client calling it.
+     */
+    @Bean
+    public TokenBucket marketDataTokenBucket(
+            @Value("${data.marketstack.rate-limit.requests-per-second:5}") double requestsPerSecond,
+            @Value("${data.marketstack.rate-limit.burst:5}") int burst
+    ) {
+        return new TokenBucket(requestsPerSecond, burst);
+    }
+
+    /**
+     * Requests in flight to the market data provider, shared by the blocking and the non-blocking
+     * client so throttling and slow responses seen by either lower the limit for both.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter marketDataConcurrencyLimiter(
+            @Value("${data.marketstack.rate-limit.min-concurrency:1}") int minConcurrency,
+            @Value("${data.marketstack.rate-limit.initial-concurrency:4}") int initialConcurrency,
+            @Value("${data.marketstack.rate-limit.max-concurrency:8}") int maxConcurrency,
+            @Value("${data.marketstack.rate-limit.latency-threshold:PT2S}") Duration latencyThreshold
+    ) {
+        return new AdaptiveConcurrencyLimiter(minConcurrency, initialConcurrency, maxConcurrency, latencyThreshold);
+    }
+}
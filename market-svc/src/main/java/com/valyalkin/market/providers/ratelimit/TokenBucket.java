@@ -0,0 +1,69 @@
+package com.valyalkin.market.providers.ratelimit;
+
+import com.valyalkin.market.config.exception.SystemException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request budget of a fixed number of permits per second with bursts of up to {@code burst}
+ * permits. Permits are handed out as reservations: the caller gets the time it has to wait before
+ * its request may start, callers that cannot block schedule themselves after that delay.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long nextFreeNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Permits per second and burst have to be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.nextFreeNanos = System.nanoTime() - burstNanos;
+    }
+
+    /**
+     * Takes a permit and returns how long to wait, in nanoseconds, before using it.
+     */
+    public synchronized long reserve() {
+        final long now = System.nanoTime();
+        final long earliest = now - burstNanos;
+
+        // Unused permits only accumulate up to the burst size
+        if (nextFreeNanos - earliest < 0) {
+            nextFreeNanos = earliest;
+        }
+
+        final long wait = Math.max(0, nextFreeNanos - now);
+        nextFreeNanos += intervalNanos;
+        return wait;
+    }
+
+    /**
+     * Takes a permit, sleeping until it can be used.
+     */
+    public void acquire() {
+        final long wait = reserve();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SystemException("Interrupted while waiting for a request permit");
+            }
+        }
+    }
+
+    /**
+     * Hands out no permits for the given time, e.g. after the provider asked to retry later.
+     */
+    public synchronized void pause(Duration duration) {
+        final long until = System.nanoTime() + duration.toNanos();
+        if (until - nextFreeNanos > 0) {
+            nextFreeNanos = until;
+        }
+    }
+}
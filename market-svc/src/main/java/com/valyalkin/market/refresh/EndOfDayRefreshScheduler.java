@@ -0,0 +1,196 @@
+package com.valyalkin.market.refresh;
+
+import com.valyalkin.market.eod.EndOfDayDataService;
+import com.valyalkin.market.eod.EndOfDayPriceDataRepository;
+import com.valyalkin.market.ticker.TickersEntity;
+import com.valyalkin.market.ticker.TickersRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Refreshes the end of day prices of all tracked tickers once their exchange has closed. Each
+ * exchange is refreshed at most once per trading day, at a fixed jitter after the close so that
+ * exchanges closing at the same time do not start together. Tickers that already have the price
+ * of the last trading day are skipped, so an exchange where some tickers failed stays due and the
+ * next poll requests only the tickers that are still behind.
+ * <p>
+ * A refresh runs on a thread of its own, so a long backfill does not hold up the other scheduled
+ * tasks. A poll arriving while the previous refresh is still running is skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "data.refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class EndOfDayRefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndOfDayRefreshScheduler.class);
+
+    private final TickersRepository tickersRepository;
+    private final EndOfDayPriceDataRepository endOfDayPriceDataRepository;
+    private final EndOfDayDataService endOfDayDataService;
+    private final RefreshProperties properties;
+
+    private final Map<String, LocalDate> refreshedFor = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(),
+            Thread.ofPlatform().name("eod-refresh-", 0).factory()
+    );
+
+    public EndOfDayRefreshScheduler(
+            TickersRepository tickersRepository,
+            EndOfDayPriceDataRepository endOfDayPriceDataRepository,
+            EndOfDayDataService endOfDayDataService,
+            RefreshProperties properties
+    ) {
+        this.tickersRepository = tickersRepository;
+        this.endOfDayPriceDataRepository = endOfDayPriceDataRepository;
+        this.endOfDayDataService = endOfDayDataService;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${data.refresh.poll-interval:PT1M}", initialDelayString = "${data.refresh.poll-interval:PT1M}")
+    public void refreshClosedExchanges() {
+        final var now = Instant.now();
+
+        try {
+            executor.execute(() -> refresh(now));
+        } catch (RejectedExecutionException e) {
+            logger.info("End of day refresh is still running, skipping");
+        }
+    }
+
+    /**
+     * Refreshes every exchange whose last trading day has not been refreshed yet. Returns without
+     * doing anything while a previous run is still in progress.
+     */
+    public void refresh(Instant now) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("End of day refresh is still running, skipping");
+            return;
+        }
+
+        try {
+            final Map<String, List<String>> tickersByMic = tickersRepository.findByHasEodPriceTrue().stream()
+                    .collect(Collectors.groupingBy(
+                            TickersEntity::getMic,
+                            TreeMap::new,
+                            Collectors.mapping(TickersEntity::getSymbol, Collectors.toList())
+                    ));
+
+            tickersByMic.forEach(
+                    (mic, tickers) -> {
+                        final var tradingDate = lastClosedTradingDate(mic, now);
+                        if (tradingDate.equals(refreshedFor.get(mic))) {
+                            return;
+                        }
+
+                        try {
+                            if (refreshExchange(mic, tickers, tradingDate)) {
+                                refreshedFor.put(mic, tradingDate);
+                            }
+                        } catch (RuntimeException e) {
+                            logger.error("End of day refresh of {} for {} failed", mic, tradingDate, e);
+                        }
+                    }
+            );
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Returns whether every ticker of the exchange is current as of the trading date.
+     */
+    private boolean refreshExchange(String mic, List<String> tickers, LocalDate tradingDate) {
+        final Map<String, LocalDate> latestDates = new HashMap<>();
+        endOfDayPriceDataRepository.findLatestPriceDatesForTickers(tickers).forEach(
+                (latest) -> latestDates.put(latest.getTicker(), latest.getLatestDate())
+        );
+
+        final var stale = tickers.stream()
+                .filter((ticker) -> {
+                    final var latestDate = latestDates.get(ticker);
+                    return latestDate == null || latestDate.isBefore(tradingDate);
+                })
+                .toList();
+
+        if (stale.isEmpty()) {
+            logger.info("End of day prices on {} are current as of {}", mic, tradingDate);
+            return true;
+        }
+
+        logger.info("Refreshing end of day prices of {} out of {} tickers on {} for {}", stale.size(), tickers.size(), mic, tradingDate);
+
+        final var failed = endOfDayDataService.processEodData(stale).stream()
+                .filter((result) -> result.error() != null)
+                .toList();
+
+        if (!failed.isEmpty()) {
+            logger.warn("End of day refresh on {} failed for {}, retrying on the next poll", mic, failed);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The most recent weekday whose close, plus the configured delay and the jitter of the exchange,
+     * has passed. Holidays are not known, a refresh on a holiday finds no new prices.
+     */
+    public LocalDate lastClosedTradingDate(String mic, Instant now) {
+        final var exchange = properties.exchange(mic);
+        final var local = now.atZone(exchange.zoneId());
+
+        var date = local.toLocalDate();
+        final var readyAt = date.atTime(exchange.closeTime())
+                .atZone(exchange.zoneId())
+                .plus(properties.delayAfterClose())
+                .plus(jitter(mic, date));
+
+        if (local.isBefore(readyAt)) {
+            date = date.minusDays(1);
+        }
+
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.minusDays(1);
+        }
+
+        return date;
+    }
+
+    private Duration jitter(String mic, LocalDate date) {
+        final long maxSeconds = properties.maxJitter().toSeconds();
+        if (maxSeconds <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofSeconds(Math.floorMod(Objects.hash(mic, date), maxSeconds));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.valyalkin.market.refresh;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Settings of the scheduled end of day refresh. Exchanges are keyed by their MIC, tickers on an
+ * exchange that is not configured use the default exchange.
+ */
+@ConfigurationProperties("data.refresh")
+public record RefreshProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("PT1M") Duration pollInterval,
+        @DefaultValue("PT30M") Duration delayAfterClose,
+        @DefaultValue("PT15M") Duration maxJitter,
+        @DefaultValue Exchange defaultExchange,
+        Map<String, Exchange> exchanges
+) {
+
+    public Exchange exchange(String mic) {
+        if (exchanges == null) {
+            return defaultExchange;
+        }
+        return exchanges.getOrDefault(mic, defaultExchange);
+    }
+
+    public record Exchange(
+            @DefaultValue("America/New_York") String zone,
+            @DefaultValue("16:00") String close
+    ) {
+
+        public ZoneId zoneId() {
+            return ZoneId.of(zone);
+        }
+
+        public LocalTime closeTime() {
+            return LocalTime.parse(close);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.valyalkin.market.ticker;
 
+import com.valyalkin.market.concurrent.SingleFlight;
 import com.valyalkin.market.eod.Currency;
 import com.valyalkin.market.providers.MarketDataProvider;
 import com.valyalkin.market.providers.model.TickerDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -10,10 +14,19 @@ public class TickerService {
 
     private final TickersRepository tickersRepository;
     private final MarketDataProvider marketDataProvider;
+    private final SingleFlight<String, TickerDto, Void> tickerLookups = new SingleFlight<>();
+    private final Counter databaseLookups;
+    private final Counter providerLookups;
 
-    public TickerService(TickersRepository tickersRepository, MarketDataProvider marketDataProvider) {
+    public TickerService(
+            TickersRepository tickersRepository,
+            MarketDataProvider marketDataProvider,
+            MeterRegistry meterRegistry
+    ) {
         this.tickersRepository = tickersRepository;
         this.marketDataProvider = marketDataProvider;
+        this.databaseLookups = Counter.builder("tickers.lookups").tag("source", "database").register(meterRegistry);
+        this.providerLookups = Counter.builder("tickers.lookups").tag("source", "provider").register(meterRegistry);
     }
 
     public TickerDto getTickerData(String ticker) {
@@ -21,18 +34,23 @@ public class TickerService {
         final var tickerEntity = tickersRepository.findBySymbol(ticker);
 
         if (tickerEntity != null) {
-            return new TickerDto(
-                    ticker,
-                    tickerEntity.getName(),
-                    tickerEntity.isHasEodPrice(),
-                    tickerEntity.getExchange(),
-                    tickerEntity.getAcronym(),
-                    tickerEntity.getMic(),
-                    tickerEntity.getCountry(),
-                    tickerEntity.getCountryCode()
-            );
+            databaseLookups.increment();
+            return toTickerDto(ticker, tickerEntity);
         }
 
+        // Concurrent lookups of a new symbol share one provider call and one insert
+        return tickerLookups.execute(ticker, () -> fetchTickerData(ticker));
+    }
+
+    private TickerDto fetchTickerData(String ticker) {
+
+        final var tickerEntity = tickersRepository.findBySymbol(ticker);
+
+        if (tickerEntity != null) {
+            return toTickerDto(ticker, tickerEntity);
+        }
+
+        providerLookups.increment();
         final var tickerData = marketDataProvider.tickerData(ticker);
 
         final var entity = new TickersEntity();
@@ -46,11 +64,32 @@ public class TickerService {
         entity.setCountryCode(tickerData.countryCode());
         entity.setCurrency(Currency.USD);
 
-        tickersRepository.save(entity);
+        try {
+            tickersRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            // Stored by another instance in the meantime
+            final var stored = tickersRepository.findBySymbol(tickerData.ticker());
+            if (stored == null) {
+                throw e;
+            }
+        }
 
         return tickerData;
 
     }
 
+    private static TickerDto toTickerDto(String ticker, TickersEntity tickerEntity) {
+        return new TickerDto(
+                ticker,
+                tickerEntity.getName(),
+                tickerEntity.isHasEodPrice(),
+                tickerEntity.getExchange(),
+                tickerEntity.getAcronym(),
+                tickerEntity.getMic(),
+                tickerEntity.getCountry(),
+                tickerEntity.getCountryCode()
+        );
+    }
+
 
 }
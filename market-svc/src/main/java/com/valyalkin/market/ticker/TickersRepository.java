@@ -2,8 +2,11 @@ package com.valyalkin.market.ticker;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface TickersRepository extends JpaRepository<TickersEntity, UUID> {
     TickersEntity findBySymbol(String symbol);
+
+    List<TickersEntity> findByHasEodPriceTrue();
 }
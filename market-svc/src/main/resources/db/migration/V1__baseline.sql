@@ -0,0 +1,53 @@
+CREATE TABLE tickers
+(
+    id           UUID         NOT NULL,
+    symbol       VARCHAR(255) NOT NULL,
+    currency     VARCHAR(255) NOT NULL,
+    name         VARCHAR(255) NOT NULL,
+    has_eod      BOOLEAN      NOT NULL,
+    exchange     VARCHAR(255) NOT NULL,
+    acronym      VARCHAR(255) NOT NULL,
+    mic          VARCHAR(255) NOT NULL,
+    country      VARCHAR(255) NOT NULL,
+    country_code VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_tickers PRIMARY KEY (id),
+    CONSTRAINT uk_tickers_symbol UNIQUE (symbol)
+);
+
+CREATE TABLE end_of_day
+(
+    id       UUID           NOT NULL,
+    ticker   VARCHAR(255)   NOT NULL,
+    date     DATE           NOT NULL,
+    price    NUMERIC(19, 4) NOT NULL,
+    currency VARCHAR(255)   NOT NULL,
+    CONSTRAINT pk_end_of_day PRIMARY KEY (id)
+);
+
+-- One row per ticker and day. Also serves MAX(date) and the latest price per ticker
+-- with an index only scan, the price is carried in the index leaf pages.
+CREATE UNIQUE INDEX uk_end_of_day_ticker_date ON end_of_day (ticker, date) INCLUDE (price);
+
+CREATE TABLE dividends
+(
+    id          UUID           NOT NULL,
+    ticker      VARCHAR(255)   NOT NULL,
+    record_date DATE           NOT NULL,
+    dividend    NUMERIC(19, 6) NOT NULL,
+    CONSTRAINT pk_dividends PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_dividends_ticker_record_date ON dividends (ticker, record_date);
+
+CREATE TABLE ingestion_checkpoints
+(
+    id          UUID                     NOT NULL,
+    dataset     VARCHAR(255)             NOT NULL,
+    ticker      VARCHAR(255)             NOT NULL,
+    date_from   DATE                     NOT NULL,
+    next_offset INTEGER                  NOT NULL,
+    total       INTEGER                  NOT NULL,
+    updated_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_ingestion_checkpoints PRIMARY KEY (id),
+    CONSTRAINT uk_ingestion_checkpoints_dataset_ticker UNIQUE (dataset, ticker)
+);
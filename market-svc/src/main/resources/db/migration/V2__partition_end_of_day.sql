@@ -0,0 +1,57 @@
+-- End of day prices move to a table partitioned by year of the date. Range scans and history
+-- pages only touch the partitions of their dates, old years can be detached instead of deleted.
+ALTER TABLE end_of_day RENAME TO end_of_day_unpartitioned;
+ALTER TABLE end_of_day_unpartitioned RENAME CONSTRAINT pk_end_of_day TO pk_end_of_day_unpartitioned;
+ALTER INDEX uk_end_of_day_ticker_date RENAME TO uk_end_of_day_unpartitioned_ticker_date;
+
+-- Unique constraints of a partitioned table have to contain the partition key
+CREATE TABLE end_of_day
+(
+    id       UUID           NOT NULL,
+    ticker   VARCHAR(255)   NOT NULL,
+    date     DATE           NOT NULL,
+    price    NUMERIC(19, 4) NOT NULL,
+    currency VARCHAR(255)   NOT NULL,
+    CONSTRAINT pk_end_of_day PRIMARY KEY (id, date)
+) PARTITION BY RANGE (date);
+
+CREATE UNIQUE INDEX uk_end_of_day_ticker_date ON end_of_day (ticker, date) INCLUDE (price);
+
+-- Scans over all tickers by date, such as a trading day or a retention range. Rows arrive roughly
+-- in date order from the daily refresh, so a BRIN index stays a few pages per partition.
+CREATE INDEX brin_end_of_day_date ON end_of_day USING brin (date) WITH (pages_per_range = 32);
+
+-- One partition per year from the oldest stored price up to next year. Later years are created
+-- ahead of time by EndOfDayPartitions, the default partition only catches dates outside of them.
+DO
+$$
+    DECLARE
+        first_year INTEGER := LEAST(
+                2018,
+                COALESCE((SELECT EXTRACT(YEAR FROM MIN(date))::INTEGER FROM end_of_day_unpartitioned), 2018)
+            );
+        last_year  INTEGER := EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 1;
+    BEGIN
+        FOR year IN first_year..last_year
+            LOOP
+                EXECUTE format(
+                        'CREATE TABLE end_of_day_%s PARTITION OF end_of_day FOR VALUES FROM (%L) TO (%L)',
+                        year,
+                        make_date(year, 1, 1),
+                        make_date(year + 1, 1, 1)
+                    );
+            END LOOP;
+    END
+$$;
+
+CREATE TABLE end_of_day_default PARTITION OF end_of_day DEFAULT;
+
+-- Copied in date order, which gives the BRIN index well correlated block ranges from the start
+INSERT INTO end_of_day (id, ticker, date, price, currency)
+SELECT id, ticker, date, price, currency
+FROM end_of_day_unpartitioned
+ORDER BY date, ticker;
+
+DROP TABLE end_of_day_unpartitioned;
+
+ANALYZE end_of_day;
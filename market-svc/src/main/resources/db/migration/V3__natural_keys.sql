@@ -0,0 +1,22 @@
+-- Prices and dividends are keyed by ticker and date instead of a random UUID nobody queries by.
+-- Keys are inserted in ticker and date order, which keeps the B-tree pages filled.
+
+-- end_of_day: the (ticker, date) unique index becomes the primary key, still carrying the price
+-- so that the latest price stays an index only scan
+ALTER TABLE end_of_day DROP CONSTRAINT pk_end_of_day;
+ALTER TABLE end_of_day DROP COLUMN id;
+ALTER TABLE end_of_day ADD CONSTRAINT pk_end_of_day PRIMARY KEY (ticker, date) INCLUDE (price);
+DROP INDEX uk_end_of_day_ticker_date;
+
+-- dividends: keep one row of a ticker and record date stored more than once
+DELETE
+FROM dividends duplicate
+    USING dividends kept
+WHERE duplicate.ticker = kept.ticker
+  AND duplicate.record_date = kept.record_date
+  AND duplicate.id < kept.id;
+
+ALTER TABLE dividends DROP CONSTRAINT pk_dividends;
+ALTER TABLE dividends DROP COLUMN id;
+ALTER TABLE dividends ADD CONSTRAINT pk_dividends PRIMARY KEY (ticker, record_date);
+DROP INDEX idx_dividends_ticker_record_date;
@@ -0,0 +1,29 @@
+-- Without a default partition the yearly partitions cover disjoint, ordered date ranges, so
+-- ORDER BY date over a ticker becomes an ordered Append that reads the newest partition first and
+-- stops at the LIMIT. With a default partition the planner has to Merge Append over all of them.
+-- Rows that landed in the default partition move to partitions of their own years first.
+ALTER TABLE end_of_day DETACH PARTITION end_of_day_default;
+
+DO
+$$
+    DECLARE
+        year INTEGER;
+    BEGIN
+        FOR year IN SELECT DISTINCT EXTRACT(YEAR FROM date)::INTEGER FROM end_of_day_default
+            LOOP
+                EXECUTE format(
+                        'CREATE TABLE IF NOT EXISTS end_of_day_%s PARTITION OF end_of_day FOR VALUES FROM (%L) TO (%L)',
+                        year,
+                        make_date(year, 1, 1),
+                        make_date(year + 1, 1, 1)
+                    );
+            END LOOP;
+    END
+$$;
+
+INSERT INTO end_of_day (ticker, date, price, currency)
+SELECT ticker, date, price, currency
+FROM end_of_day_default
+ORDER BY date, ticker;
+
+DROP TABLE end_of_day_default;
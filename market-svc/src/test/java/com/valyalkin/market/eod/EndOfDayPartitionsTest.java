@@ -0,0 +1,90 @@
+package com.valyalkin.market.eod;
+
+import com.valyalkin.market.config.jdbc.DatabaseDialect;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+public class EndOfDayPartitionsTest {
+
+    private static final DatabaseDialect POSTGRESQL = new DatabaseDialect(DatabaseDialect.Database.POSTGRESQL);
+    private static final DatabaseDialect H2 = new DatabaseDialect(DatabaseDialect.Database.H2);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @DisplayName("Partition of a year before date-from is created before writing its rows")
+    void testPartitionBeforeDateFrom() {
+        var partitions = new EndOfDayPartitions(jdbcTemplate, POSTGRESQL, "market", LocalDate.of(2020, 1, 1), 1);
+        partitions.createUpcomingPartitions();
+        clearInvocations(jdbcTemplate);
+
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2010, 6, 1)), price(LocalDate.of(2010, 6, 2))));
+
+        verify(jdbcTemplate).execute(
+                "CREATE TABLE IF NOT EXISTS market.end_of_day_2010 PARTITION OF market.end_of_day " +
+                        "FOR VALUES FROM ('2010-01-01') TO ('2011-01-01')"
+        );
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Partitions are created once per year")
+    void testPartitionCreatedOnce() {
+        var partitions = new EndOfDayPartitions(jdbcTemplate, POSTGRESQL, "market", LocalDate.of(2020, 1, 1), 1);
+        partitions.createUpcomingPartitions();
+        clearInvocations(jdbcTemplate);
+
+        // Years created at startup are not created again
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2020, 3, 2)), price(LocalDate.now(ZoneOffset.UTC))));
+        verifyNoInteractions(jdbcTemplate);
+
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2012, 1, 3)), price(LocalDate.of(2011, 12, 30))));
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2012, 1, 4))));
+
+        verify(jdbcTemplate).execute(contains("end_of_day_2011 "));
+        verify(jdbcTemplate).execute(contains("end_of_day_2012 "));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Failed partition is created again for the next page")
+    void testFailedPartitionRetried() {
+        var partitions = new EndOfDayPartitions(jdbcTemplate, POSTGRESQL, "market", LocalDate.of(2020, 1, 1), 1);
+        doThrow(new DataAccessResourceFailureException("Connection refused"))
+                .doNothing()
+                .when(jdbcTemplate).execute(anyString());
+
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2010, 6, 1))));
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2010, 6, 2))));
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2010, 6, 3))));
+
+        verify(jdbcTemplate, times(2)).execute(contains("end_of_day_2010 "));
+    }
+
+    @Test
+    @DisplayName("Nothing is created when the table is not partitioned")
+    void testNotPartitioned() {
+        var partitions = new EndOfDayPartitions(jdbcTemplate, H2, "market", LocalDate.of(2020, 1, 1), 1);
+
+        partitions.createUpcomingPartitions();
+        partitions.ensurePartitions(List.of(price(LocalDate.of(2010, 6, 1))));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static EndOfDayPrice price(LocalDate date) {
+        return new EndOfDayPrice(BigDecimal.valueOf(246.49), "AAPL", "XNAS", date);
+    }
+}
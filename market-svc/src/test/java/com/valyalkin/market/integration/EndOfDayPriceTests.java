@@ -1,40 +1,103 @@
 package com.valyalkin.market.integration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valyalkin.market.dto.LatestPriceDto;
 import com.valyalkin.market.eod.Currency;
 import com.valyalkin.market.eod.EndOfDayDataService;
+import com.valyalkin.market.eod.EndOfDayPriceBatchWriter;
 import com.valyalkin.market.eod.EndOfDayPriceDataEntity;
 import com.valyalkin.market.eod.EndOfDayPriceDataRepository;
+import com.valyalkin.market.eod.LatestPriceCache;
+import com.valyalkin.market.eod.PriceSeriesStore;
+import com.valyalkin.market.ingestion.Dataset;
+import com.valyalkin.market.ingestion.IngestionCheckpointEntity;
+import com.valyalkin.market.ingestion.IngestionCheckpointRepository;
+import com.valyalkin.market.ingestion.IngestionProgress;
+import com.valyalkin.market.providers.RateLimitedAsyncMarketDataProvider;
+import com.valyalkin.market.providers.RateLimitedMarketDataProvider;
+import com.valyalkin.market.providers.marketstack.MarketStackResponseParser;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
 import com.valyalkin.market.utils.TestUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.wiremock.spring.EnableWireMock;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @SpringBootTest
 @ActiveProfiles({"test", "wiremock"})
+@AutoConfigureMockMvc
 @EnableWireMock
 public class EndOfDayPriceTests {
 
+    @Autowired
+    private MockMvc mockMvc;
+
     @Autowired
     private EndOfDayPriceDataRepository endOfDayPriceDataRepository;
 
     @Autowired
     private EndOfDayDataService service;
 
+    @Autowired
+    private EndOfDayPriceBatchWriter endOfDayPriceBatchWriter;
+
+    @Autowired
+    private IngestionCheckpointRepository ingestionCheckpointRepository;
+
+    @Autowired
+    private LatestPriceCache latestPriceCache;
+
+    @Autowired
+    private PriceSeriesStore priceSeriesStore;
+
+    @Autowired
+    private RateLimitedAsyncMarketDataProvider asyncMarketDataProvider;
+
+    @Autowired
+    private RateLimitedMarketDataProvider marketDataProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     public void cleanUp() {
         endOfDayPriceDataRepository.deleteAll();
+        ingestionCheckpointRepository.deleteAll();
+        latestPriceCache.clear();
+        priceSeriesStore.clear();
     }
 
     private String ticker = "AAPL";
@@ -151,4 +214,802 @@ public class EndOfDayPriceTests {
 
 
     }
+
+    @Test
+    @DisplayName("Storing the same page twice keeps one row per day with the latest price")
+    void testUpsertSamePageTwice() throws Exception {
+
+        List<EndOfDayPrice> page = new ArrayList<>();
+        new MarketStackResponseParser().endOfDayPage(
+                new ByteArrayInputStream(TestUtils.readFileFromResources(
+                        "marketstack/eod/eod-appl-offset-0-newDate.json"
+                ).getBytes(StandardCharsets.UTF_8)),
+                page::add
+        );
+        var corrected = page.stream()
+                .map((price) -> new EndOfDayPrice(price.close().add(BigDecimal.ONE), price.ticker(), price.exchange(), price.date()))
+                .toList();
+
+        endOfDayPriceBatchWriter.write(ticker, page);
+        endOfDayPriceBatchWriter.write(ticker, corrected);
+
+        var entities = endOfDayPriceDataRepository.findByTicker(ticker);
+
+        assertThat(entities).hasSize(page.size());
+        assertThat(entities.stream().map(EndOfDayPriceDataEntity::getDate).distinct().count()).isEqualTo(page.size());
+        corrected.forEach((price) -> {
+            var stored = entities.stream().filter((entity) -> entity.getDate().equals(price.date())).toList();
+            assertThat(stored).hasSize(1);
+            assertThat(stored.get(0).getPrice()).isEqualByComparingTo(price.close());
+        });
+    }
+
+    @Test
+    @DisplayName("Resume an interrupted load from the last checkpoint")
+    void testResumeFromCheckpoint() {
+
+        LocalDate dateFrom = LocalDate.of(2024, 1, 1);
+
+        // Pages at offsets 0 and 100 were already committed before the interruption
+        final var checkpoint = new IngestionCheckpointEntity();
+        checkpoint.setDataset(Dataset.EOD);
+        checkpoint.setTicker(ticker);
+        checkpoint.setDateFrom(dateFrom);
+        checkpoint.setNextOffset(200);
+        checkpoint.setTotal(251);
+        checkpoint.setUpdatedAt(Instant.now());
+        ingestionCheckpointRepository.save(checkpoint);
+
+        var eodResponseOffset200 = TestUtils.readFileFromResources(
+                "marketstack/eod/eod-appl-offset-200.json"
+        );
+
+        stubFor(
+                get(
+                        urlPathMatching("/v1/eod"))
+                        .withQueryParam("access_key", equalTo("test"))
+                        .withQueryParam("symbols", equalTo(ticker))
+                        .withQueryParam("offset", equalTo("200"))
+                        .withQueryParam("date_from", equalTo(dateFrom.toString()))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withBody(eodResponseOffset200)
+                        )
+        );
+
+        service.processEodData(ticker);
+
+        List<EndOfDayPriceDataEntity> entities = endOfDayPriceDataRepository.findByTicker(ticker);
+
+        assertThat(entities.size()).isEqualTo(51);
+        assertThat(ingestionCheckpointRepository.findByDatasetAndTicker(Dataset.EOD, ticker)).isNull();
+    }
+
+    @Test
+    @DisplayName("Several tickers with the same start date are fetched together")
+    void testMultipleTickersInOneRequest() {
+
+        LocalDate lastDate = LocalDate.of(2024, 12, 11);
+
+        List.of(ticker, "MSFT").forEach(
+                (symbol) -> {
+                    EndOfDayPriceDataEntity lastEntity = new EndOfDayPriceDataEntity();
+                    lastEntity.setTicker(symbol);
+                    lastEntity.setDate(lastDate);
+                    lastEntity.setPrice(BigDecimal.valueOf(246.49));
+                    lastEntity.setCurrency(Currency.USD);
+                    endOfDayPriceDataRepository.save(lastEntity);
+                }
+        );
+
+        var eodResponse = TestUtils.readFileFromResources(
+                "marketstack/eod/eod-aapl-msft-offset-0.json"
+        );
+
+        stubFor(
+                get(
+                        urlPathMatching("/v1/eod"))
+                        .withQueryParam("access_key", equalTo("test"))
+                        .withQueryParam("symbols", equalTo(ticker + ",MSFT"))
+                        .withQueryParam("offset", equalTo("0"))
+                        .withQueryParam("date_from", equalTo(lastDate.plusDays(1).toString()))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withBody(eodResponse)
+                        )
+        );
+
+        var results = service.processEodData(List.of(ticker, "MSFT"));
+
+        assertThat(results.size()).isEqualTo(2);
+        assertThat(results.get(0).ticker()).isEqualTo(ticker);
+        assertThat(results.get(0).rowsInserted()).isEqualTo(2);
+        assertThat(results.get(0).pagesFetched()).isEqualTo(1);
+        assertThat(results.get(1).ticker()).isEqualTo("MSFT");
+        assertThat(results.get(1).rowsInserted()).isEqualTo(2);
+        assertThat(results.get(1).error()).isNull();
+
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo(3);
+        assertThat(endOfDayPriceDataRepository.findByTicker("MSFT").size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Pages of several tickers are fetched ahead and stored in order")
+    void testMultipleTickersPrefetched() {
+
+        Map.of(
+                "0", "marketstack/eod/eod-appl-offset-0.json",
+                "100", "marketstack/eod/eod-appl-offset-100.json",
+                "200", "marketstack/eod/eod-appl-offset-200.json"
+        ).forEach(
+                (offset, file) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("symbols", equalTo(ticker + ",MSFT"))
+                                .withQueryParam("sort", equalTo("ASC"))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(TestUtils.readFileFromResources(file))
+                                )
+                )
+        );
+
+        var results = service.processEodData(List.of(ticker, "MSFT"));
+
+        assertThat(results.get(0).error()).isNull();
+        assertThat(results.get(0).rowsInserted()).isEqualTo(251);
+        assertThat(results.get(0).pagesFetched()).isEqualTo(3);
+        assertThat(results.get(1).rowsInserted()).isEqualTo(0);
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo(251);
+        List.of("0", "100", "200").forEach(
+                (offset) -> verify(1, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo(offset)))
+        );
+    }
+
+    @Test
+    @DisplayName("Pages fetched ahead stay within the limit of requests in flight")
+    void testPrefetchInFlightLimit() throws Exception {
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withFixedDelay(500)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-200.json"))
+                        )
+        );
+
+        var pages = List.of(0, 100, 200, 300).stream()
+                .map((offset) -> asyncMarketDataProvider.endOfDayData(ticker, LocalDate.of(2023, 12, 18), offset))
+                .toList();
+
+        // The first two responses are delayed, the other pages wait for a slot
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> findAll(getRequestedFor(urlPathMatching("/v1/eod"))).size() == 2);
+        assertThat(asyncMarketDataProvider.inFlight()).isEqualTo(2);
+        assertThat(findAll(getRequestedFor(urlPathMatching("/v1/eod"))).size()).isEqualTo(2);
+
+        CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new)).join();
+        assertThat(asyncMarketDataProvider.inFlight()).isEqualTo(0);
+        verify(4, getRequestedFor(urlPathMatching("/v1/eod")));
+    }
+
+    @Test
+    @DisplayName("Pages fetched ahead are requested gzip compressed and decoded while parsed")
+    void testPrefetchGzip() throws Exception {
+
+        var body = TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-200.json")
+                .getBytes(StandardCharsets.UTF_8);
+        var compressed = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .withHeader("Accept-Encoding", containing("gzip"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withHeader("Content-Encoding", "gzip")
+                                        .withStatus(200)
+                                        .withBody(compressed.toByteArray())
+                        )
+        );
+
+        List<EndOfDayPrice> expected = new ArrayList<>();
+        var pagination = new MarketStackResponseParser().endOfDayPage(new ByteArrayInputStream(body), expected::add);
+
+        var page = asyncMarketDataProvider.endOfDayData(ticker, LocalDate.of(2023, 12, 18), 200).get();
+
+        assertThat(page.eod()).isEqualTo(expected);
+        assertThat(page.pagination()).isEqualTo(pagination);
+    }
+
+    @Test
+    @DisplayName("Blocking and prefetched requests share one limit of requests in flight")
+    void testBlockingAndPrefetchShareLimit() throws Exception {
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withFixedDelay(500)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-200.json"))
+                        )
+        );
+
+        var dateFrom = LocalDate.of(2023, 12, 18);
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var blocking = executor.submit(() -> marketDataProvider.endOfDayData(ticker, dateFrom, 0));
+            await().atMost(Duration.ofSeconds(5)).until(() -> asyncMarketDataProvider.inFlight() == 1);
+
+            var pages = List.of(100, 200).stream()
+                    .map((offset) -> asyncMarketDataProvider.endOfDayData(ticker, dateFrom, offset))
+                    .toList();
+
+            // The blocking request holds one of the two slots, only one page goes out
+            await().atMost(Duration.ofSeconds(5))
+                    .until(() -> findAll(getRequestedFor(urlPathMatching("/v1/eod"))).size() == 2);
+            assertThat(asyncMarketDataProvider.inFlight()).isEqualTo(2);
+            verify(0, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("200")));
+
+            blocking.get();
+            CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new)).join();
+        }
+
+        assertThat(asyncMarketDataProvider.inFlight()).isEqualTo(0);
+        verify(3, getRequestedFor(urlPathMatching("/v1/eod")));
+    }
+
+    @Test
+    @DisplayName("Cancelled page waiting for a slot is never requested")
+    void testCancelledPrefetchNotRequested() throws Exception {
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withFixedDelay(500)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-200.json"))
+                        )
+        );
+
+        var dateFrom = LocalDate.of(2023, 12, 18);
+        var inFlight = List.of(0, 100).stream()
+                .map((offset) -> asyncMarketDataProvider.endOfDayData(ticker, dateFrom, offset))
+                .toList();
+
+        // Both slots are taken, the next page waits in the queue
+        var queued = asyncMarketDataProvider.endOfDayData(ticker, dateFrom, 200);
+        assertThat(queued.cancel(true)).isTrue();
+
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+
+        // Slots are granted in order, the cancelled page would have gone out before this one
+        asyncMarketDataProvider.endOfDayData(ticker, dateFrom, 300).get();
+
+        assertThat(asyncMarketDataProvider.inFlight()).isEqualTo(0);
+        verify(3, getRequestedFor(urlPathMatching("/v1/eod")));
+        verify(0, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("200")));
+    }
+
+    @Test
+    @DisplayName("Latest price is served from the cache after an ingest")
+    void testLatestPriceCachedAfterIngest() {
+
+        Map.of(
+                "0", "marketstack/eod/eod-appl-offset-0.json",
+                "100", "marketstack/eod/eod-appl-offset-100.json",
+                "200", "marketstack/eod/eod-appl-offset-200.json"
+        ).forEach(
+                (offset, file) -> stubFor(
+                        get(
+                                urlPathMatching("/v1/eod"))
+                                .withQueryParam("access_key", equalTo("test"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(TestUtils.readFileFromResources(file))
+                                )
+                )
+        );
+
+        service.processEodData(ticker);
+
+        final var hitsBefore = latestPriceCache.stats().hits();
+        final var latestPrice = service.latestPriceForTicker(ticker);
+
+        assertThat(latestPrice.latestDate()).isEqualTo(LocalDate.of(2024, 12, 16));
+        assertThat(latestPrice.price()).isEqualByComparingTo(BigDecimal.valueOf(251.04));
+        assertThat(latestPriceCache.stats().hits()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    @DisplayName("A latest price loaded before an ingest does not replace the newer cached one")
+    void testStaleLatestPriceNotCached() {
+        final var newer = new LatestPriceDto(ticker, LocalDate.of(2024, 12, 16), BigDecimal.valueOf(251.04));
+        final var stale = new LatestPriceDto(ticker, LocalDate.of(2024, 12, 11), BigDecimal.valueOf(246.49));
+
+        latestPriceCache.put(newer);
+
+        assertThat(latestPriceCache.put(stale)).isEqualTo(newer);
+        assertThat(latestPriceCache.get(ticker)).isEqualTo(newer);
+    }
+
+    @Test
+    @DisplayName("Latest price reads racing an ingest end with the newest price cached")
+    void testLatestPriceReadRacingIngest() throws Exception {
+
+        LocalDate lastDate = LocalDate.of(2024, 12, 11);
+
+        EndOfDayPriceDataEntity lastEntity = new EndOfDayPriceDataEntity();
+        lastEntity.setTicker(ticker);
+        lastEntity.setDate(lastDate);
+        lastEntity.setPrice(BigDecimal.valueOf(246.49));
+        lastEntity.setCurrency(Currency.USD);
+        endOfDayPriceDataRepository.save(lastEntity);
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .withQueryParam("symbols", equalTo(ticker))
+                        .withQueryParam("offset", equalTo("0"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withFixedDelay(200)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0-newDate.json"))
+                        )
+        );
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            final var ingest = executor.submit(() -> service.processEodData(ticker));
+            final var reads = executor.submit(() -> {
+                while (!ingest.isDone()) {
+                    latestPriceCache.clear();
+                    service.latestPriceForTicker(ticker);
+                }
+            });
+
+            assertThat(ingest.get().error()).isNull();
+            reads.get();
+        }
+
+        assertThat(latestPriceCache.get(ticker).latestDate()).isEqualTo(LocalDate.of(2024, 12, 16));
+    }
+
+    @Test
+    @DisplayName("A caller joining a running ingestion keeps it going when the first caller cancels")
+    void testSharedIngestionOutlivesCancelledCaller() throws Exception {
+
+        Map.of(
+                "0", "marketstack/eod/eod-appl-offset-0.json",
+                "100", "marketstack/eod/eod-appl-offset-100.json",
+                "200", "marketstack/eod/eod-appl-offset-200.json"
+        ).forEach(
+                (offset, file) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withFixedDelay(300)
+                                                .withBody(TestUtils.readFileFromResources(file))
+                                )
+                )
+        );
+
+        final var firstCancelled = new AtomicBoolean();
+        final var firstStarted = new CountDownLatch(1);
+        final var joinedStarted = new CountDownLatch(1);
+        final var joinedPages = new AtomicInteger();
+
+        final IngestionProgress first = new IngestionProgress() {
+            @Override
+            public void pagesDiscovered(int pages) {
+                firstStarted.countDown();
+            }
+
+            @Override
+            public void pageStored(int rows) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return firstCancelled.get();
+            }
+        };
+
+        final IngestionProgress joined = new IngestionProgress() {
+            // A caller joining a running ingestion is told about the pages still left
+            @Override
+            public void pagesDiscovered(int pages) {
+                joinedStarted.countDown();
+            }
+
+            @Override
+            public void pageStored(int rows) {
+                joinedPages.incrementAndGet();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            final var firstResult = executor.submit(() -> service.processEodData(ticker, first));
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            final var joinedResult = executor.submit(() -> service.processEodData(ticker, joined));
+            assertThat(joinedStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            firstCancelled.set(true);
+
+            assertThat(joinedResult.get().error()).isNull();
+            assertThat(joinedResult.get().rowsInserted()).isEqualTo(251);
+            assertThat(firstResult.get().rowsInserted()).isEqualTo(251);
+        }
+
+        assertThat(joinedPages.get()).isEqualTo(3);
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo(251);
+    }
+
+    @Test
+    @DisplayName("Latest prices of several tickers at once")
+    void testLatestPricesForTickers() {
+
+        Map.of(
+                LocalDate.of(2024, 12, 12), "AAPL",
+                LocalDate.of(2024, 12, 13), "AAPL",
+                LocalDate.of(2024, 12, 11), "MSFT"
+        ).forEach(
+                (date, symbol) -> {
+                    EndOfDayPriceDataEntity entity = new EndOfDayPriceDataEntity();
+                    entity.setTicker(symbol);
+                    entity.setDate(date);
+                    entity.setPrice(BigDecimal.valueOf(date.getDayOfMonth()));
+                    entity.setCurrency(Currency.USD);
+                    endOfDayPriceDataRepository.save(entity);
+                }
+        );
+
+        var latestPrices = service.latestPricesForTickers(List.of("MSFT", "AAPL", "UNKNOWN"));
+
+        assertThat(latestPrices.size()).isEqualTo(2);
+        assertThat(latestPrices.get(0).ticker()).isEqualTo("MSFT");
+        assertThat(latestPrices.get(0).latestDate()).isEqualTo(LocalDate.of(2024, 12, 11));
+        assertThat(latestPrices.get(1).ticker()).isEqualTo("AAPL");
+        assertThat(latestPrices.get(1).latestDate()).isEqualTo(LocalDate.of(2024, 12, 13));
+        assertThat(latestPrices.get(1).price()).isEqualByComparingTo(BigDecimal.valueOf(13));
+    }
+
+    @Test
+    @DisplayName("Price history is paged with a date cursor")
+    void testPriceHistoryPages() throws Exception {
+
+        for (int day = 2; day <= 6; day++) {
+            EndOfDayPriceDataEntity entity = new EndOfDayPriceDataEntity();
+            entity.setTicker(ticker);
+            entity.setDate(LocalDate.of(2024, 12, day));
+            entity.setPrice(BigDecimal.valueOf(240 + day));
+            entity.setCurrency(Currency.USD);
+            endOfDayPriceDataRepository.save(entity);
+        }
+
+        final var objectMapper = new ObjectMapper();
+
+        var first = objectMapper.readTree(priceHistory(Map.of("from", "2024-12-03", "to", "2024-12-31", "limit", "2")));
+
+        assertThat(first.get("ticker").asText()).isEqualTo(ticker);
+        assertThat(first.get("prices").size()).isEqualTo(2);
+        assertThat(first.get("prices").get(0).get("date").asText()).isEqualTo("2024-12-03");
+        assertThat(first.get("next").asText()).isEqualTo("2024-12-04");
+
+        // The cursor of the first page is passed on as is
+        var second = objectMapper.readTree(priceHistory(Map.of(
+                "from", "2024-12-03",
+                "to", "2024-12-31",
+                "after", first.get("next").asText(),
+                "limit", "2"
+        )));
+
+        assertThat(second.get("prices").size()).isEqualTo(2);
+        assertThat(second.get("prices").get(0).get("date").asText()).isEqualTo("2024-12-05");
+        assertThat(second.get("prices").get(1).get("price").decimalValue()).isEqualByComparingTo(BigDecimal.valueOf(246));
+        assertThat(second.get("next").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Invalid price history parameters are rejected before streaming")
+    void testPriceHistoryValidation() throws Exception {
+
+        var invalid = List.of(
+                Map.of("limit", "0"),
+                Map.of("limit", "10001"),
+                Map.of("from", "2024-12-31", "to", "2024-12-01"),
+                Map.of("after", "not-a-date")
+        );
+
+        for (var params : invalid) {
+            mockMvc.perform(historyRequest(params)).andExpect(
+                    MockMvcResultMatchers.status().isBadRequest()
+            );
+        }
+    }
+
+    private String priceHistory(Map<String, String> params) throws Exception {
+        var started = mockMvc.perform(historyRequest(params)).andExpect(
+                MockMvcResultMatchers.request().asyncStarted()
+        ).andReturn();
+
+        return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(started)).andExpect(
+                MockMvcResultMatchers.status().isOk()
+        ).andExpect(
+                MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON)
+        ).andReturn().getResponse().getContentAsString();
+    }
+
+    private MockHttpServletRequestBuilder historyRequest(Map<String, String> params) {
+        var request = MockMvcRequestBuilders.get("/v1/eod/" + ticker);
+        params.forEach(request::param);
+        return request;
+    }
+
+    @Test
+    @DisplayName("Price series store keeps neither unknown tickers nor more than its max size")
+    void testPriceSeriesStoreBounded() {
+        final var date = LocalDate.of(2024, 12, 11);
+
+        List.of("AAPL", "MSFT", "NVDA").forEach(
+                (symbol) -> {
+                    EndOfDayPriceDataEntity entity = new EndOfDayPriceDataEntity();
+                    entity.setTicker(symbol);
+                    entity.setDate(date);
+                    entity.setPrice(BigDecimal.TEN);
+                    entity.setCurrency(Currency.USD);
+                    endOfDayPriceDataRepository.save(entity);
+                }
+        );
+
+        var unknown = service.priceSeries("UNKNOWN", date, date);
+        assertThat(unknown.dates()).isEmpty();
+        assertThat(priceSeriesStore.size()).isEqualTo(0);
+
+        List.of("AAPL", "MSFT", "NVDA").forEach(
+                (symbol) -> assertThat(service.priceSeries(symbol, date, date).dates()).containsExactly(date)
+        );
+        assertThat(priceSeriesStore.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Price series is loaded again after an ingest")
+    void testPriceSeriesReloadedAfterIngest() {
+
+        LocalDate lastDate = LocalDate.of(2024, 12, 11);
+
+        EndOfDayPriceDataEntity lastEntity = new EndOfDayPriceDataEntity();
+        lastEntity.setTicker(ticker);
+        lastEntity.setDate(lastDate);
+        lastEntity.setPrice(BigDecimal.valueOf(246.49));
+        lastEntity.setCurrency(Currency.USD);
+
+        endOfDayPriceDataRepository.save(lastEntity);
+
+        // Loads the series before ingestion, which has to invalidate it
+        var before = service.priceSeries(ticker, LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31));
+        assertThat(before.dates()).containsExactly(lastDate);
+
+        Map.of(
+                "0", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0-newDate.json"),
+                "100", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100-newDate.json")
+        ).forEach(
+                (offset, response) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("access_key", equalTo("test"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .withQueryParam("date_from", equalTo(lastDate.plusDays(1).toString()))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(response)
+                                )
+                )
+        );
+
+        service.processEodData(ticker);
+
+        var after = service.priceSeries(ticker, LocalDate.of(2024, 12, 12), LocalDate.of(2024, 12, 31));
+
+        assertThat(after.dates()).containsExactly(
+                LocalDate.of(2024, 12, 12),
+                LocalDate.of(2024, 12, 13),
+                LocalDate.of(2024, 12, 16)
+        );
+        assertThat(after.closes()).containsExactly(247.96, 248.13, 251.04);
+    }
+
+    @Test
+    @DisplayName("Throttled requests are retried after Retry-After")
+    void testRetryWhenRateLimited() {
+
+        LocalDate lastDate = LocalDate.of(2024, 12, 11);
+
+        EndOfDayPriceDataEntity lastEntity = new EndOfDayPriceDataEntity();
+        lastEntity.setTicker(ticker);
+        lastEntity.setDate(lastDate);
+        lastEntity.setPrice(BigDecimal.valueOf(246.49));
+        lastEntity.setCurrency(Currency.USD);
+        endOfDayPriceDataRepository.save(lastEntity);
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .inScenario("rate limit")
+                        .whenScenarioStateIs(STARTED)
+                        .withQueryParam("offset", equalTo("0"))
+                        .willReturn(
+                                aResponse()
+                                        .withStatus(429)
+                                        .withHeader("Retry-After", "0")
+                                        .withBody("{\"error\":{\"code\":\"rate_limit_reached\"}}")
+                        )
+                        .willSetStateTo("throttled")
+        );
+
+        Map.of(
+                "0", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0-newDate.json"),
+                "100", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100-newDate.json")
+        ).forEach(
+                (offset, response) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .inScenario("rate limit")
+                                .whenScenarioStateIs("throttled")
+                                .withQueryParam("access_key", equalTo("test"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .withQueryParam("date_from", equalTo(lastDate.plusDays(1).toString()))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(response)
+                                )
+                )
+        );
+
+        var result = service.processEodData(ticker);
+
+        assertThat(result.error()).isNull();
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Throttled pages fetched ahead are retried")
+    void testRetryWhenPrefetchedPageRateLimited() {
+
+        Map.of(
+                "0", "marketstack/eod/eod-appl-offset-0.json",
+                "200", "marketstack/eod/eod-appl-offset-200.json"
+        ).forEach(
+                (offset, file) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(TestUtils.readFileFromResources(file))
+                                )
+                )
+        );
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .inScenario("prefetch rate limit")
+                        .whenScenarioStateIs(STARTED)
+                        .withQueryParam("offset", equalTo("100"))
+                        .willReturn(
+                                aResponse()
+                                        .withStatus(429)
+                                        .withHeader("Retry-After", "0")
+                                        .withBody("{\"error\":{\"code\":\"rate_limit_reached\"}}")
+                        )
+                        .willSetStateTo("throttled")
+        );
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .inScenario("prefetch rate limit")
+                        .whenScenarioStateIs("throttled")
+                        .withQueryParam("offset", equalTo("100"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100.json"))
+                        )
+        );
+
+        var result = service.processEodData(ticker);
+
+        assertThat(result.error()).isNull();
+        assertThat(result.pagesFetched()).isEqualTo(3);
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo(251);
+        verify(2, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("100")));
+    }
+
+    @Test
+    @DisplayName("Latency of every MarketStack request is recorded")
+    void testRequestLatencyRecorded() {
+
+        stubFullHistory();
+
+        var latency = meterRegistry.find("marketstack.client.requests")
+                .tags("endpoint", "/v1/eod", "status", "200")
+                .timer();
+        var requestsBefore = latency == null ? 0 : latency.count();
+
+        service.processEodData(ticker);
+
+        latency = meterRegistry.find("marketstack.client.requests")
+                .tags("endpoint", "/v1/eod", "status", "200")
+                .timer();
+        assertThat(latency).isNotNull();
+        assertThat(latency.count() - requestsBefore).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Ingested rows and the staleness of the ticker are exported")
+    void testIngestionMetricsRecorded() {
+
+        stubFullHistory();
+
+        var rowsBefore = meterRegistry.counter("ingestion.rows", "dataset", "eod").count();
+
+        service.processEodData(ticker);
+
+        assertThat(meterRegistry.counter("ingestion.rows", "dataset", "eod").count() - rowsBefore).isEqualTo(251);
+        assertThat(meterRegistry.find("eod.staleness").tag("ticker", ticker).gauge()).isNotNull();
+    }
+
+    private void stubFullHistory() {
+        Map.of(
+                "0", "marketstack/eod/eod-appl-offset-0.json",
+                "100", "marketstack/eod/eod-appl-offset-100.json",
+                "200", "marketstack/eod/eod-appl-offset-200.json"
+        ).forEach(
+                (offset, file) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(TestUtils.readFileFromResources(file))
+                                )
+                )
+        );
+    }
 }
@@ -0,0 +1,202 @@
+package com.valyalkin.market.integration;
+
+import com.valyalkin.market.eod.Currency;
+import com.valyalkin.market.eod.EndOfDayDataService;
+import com.valyalkin.market.eod.EndOfDayPriceDataEntity;
+import com.valyalkin.market.eod.EndOfDayPriceDataRepository;
+import com.valyalkin.market.eod.LatestPriceCache;
+import com.valyalkin.market.ingestion.IngestionCheckpointRepository;
+import com.valyalkin.market.refresh.EndOfDayRefreshScheduler;
+import com.valyalkin.market.refresh.RefreshProperties;
+import com.valyalkin.market.ticker.TickersEntity;
+import com.valyalkin.market.ticker.TickersRepository;
+import com.valyalkin.market.utils.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.wiremock.spring.EnableWireMock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({"test", "wiremock"})
+@EnableWireMock
+public class EndOfDayRefreshTests {
+
+    @Autowired
+    private TickersRepository tickersRepository;
+
+    @Autowired
+    private EndOfDayPriceDataRepository endOfDayPriceDataRepository;
+
+    @Autowired
+    private IngestionCheckpointRepository ingestionCheckpointRepository;
+
+    @Autowired
+    private EndOfDayDataService service;
+
+    @Autowired
+    private LatestPriceCache latestPriceCache;
+
+    private EndOfDayRefreshScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        tickersRepository.deleteAll();
+        endOfDayPriceDataRepository.deleteAll();
+        ingestionCheckpointRepository.deleteAll();
+        latestPriceCache.clear();
+
+        var properties = new RefreshProperties(
+                true,
+                Duration.ofMinutes(1),
+                Duration.ofMinutes(30),
+                Duration.ZERO,
+                new RefreshProperties.Exchange("America/New_York", "16:00"),
+                Map.of()
+        );
+
+        scheduler = new EndOfDayRefreshScheduler(tickersRepository, endOfDayPriceDataRepository, service, properties);
+    }
+
+    @Test
+    @DisplayName("Last closed trading day follows the exchange close and skips weekends")
+    void testLastClosedTradingDate() {
+        // Before the close on Tuesday the last trading day is Monday
+        assertThat(scheduler.lastClosedTradingDate("XNAS", Instant.parse("2024-12-17T15:00:00Z")))
+                .isEqualTo(LocalDate.of(2024, 12, 16));
+        // Half an hour after the close
+        assertThat(scheduler.lastClosedTradingDate("XNAS", Instant.parse("2024-12-17T21:30:00Z")))
+                .isEqualTo(LocalDate.of(2024, 12, 17));
+        // Weekends fall back to Friday
+        assertThat(scheduler.lastClosedTradingDate("XNAS", Instant.parse("2024-12-15T12:00:00Z")))
+                .isEqualTo(LocalDate.of(2024, 12, 13));
+    }
+
+    @Test
+    @DisplayName("Refresh only requests tickers behind the last closed trading day")
+    void testRefreshSkipsCurrentTickers() {
+
+        LocalDate lastDate = LocalDate.of(2024, 12, 11);
+
+        saveTicker("AAPL");
+        saveTicker("MSFT");
+        savePrice("AAPL", lastDate);
+        savePrice("MSFT", LocalDate.of(2024, 12, 16));
+
+        Map.of(
+                "0", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0-newDate.json"),
+                "100", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100-newDate.json")
+        ).forEach(
+                (offset, response) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("access_key", equalTo("test"))
+                                .withQueryParam("symbols", equalTo("AAPL"))
+                                .withQueryParam("offset", equalTo(offset))
+                                .withQueryParam("date_from", equalTo(lastDate.plusDays(1).toString()))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(response)
+                                )
+                )
+        );
+
+        var now = Instant.parse("2024-12-17T15:00:00Z");
+        scheduler.refresh(now);
+
+        assertThat(endOfDayPriceDataRepository.findByTicker("AAPL").size()).isEqualTo(4);
+        assertThat(endOfDayPriceDataRepository.findByTicker("MSFT").size()).isEqualTo(1);
+
+        // The trading day is already refreshed, nothing is requested again
+        var requests = findAll(getRequestedFor(urlPathMatching("/v1/eod"))).size();
+        scheduler.refresh(now);
+        assertThat(findAll(getRequestedFor(urlPathMatching("/v1/eod"))).size()).isEqualTo(requests);
+    }
+
+    @Test
+    @DisplayName("Refresh retries failed tickers on the next poll")
+    void testRefreshRetriesFailedTickers() {
+
+        LocalDate lastDate = LocalDate.of(2024, 12, 11);
+
+        saveTicker("AAPL");
+        saveTicker("MSFT");
+        savePrice("AAPL", lastDate);
+        savePrice("MSFT", LocalDate.of(2024, 12, 10));
+
+        Map.of(
+                "0", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0-newDate.json"),
+                "100", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100-newDate.json")
+        ).forEach(
+                (offset, response) -> stubFor(
+                        get(urlPathMatching("/v1/eod"))
+                                .withQueryParam("access_key", equalTo("test"))
+                                .withQueryParam("symbols", equalTo("AAPL"))
+                                .withQueryParam("offset", equalTo(offset))
+                                .withQueryParam("date_from", equalTo(lastDate.plusDays(1).toString()))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(response)
+                                )
+                )
+        );
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .withQueryParam("symbols", equalTo("MSFT"))
+                        .willReturn(aResponse().withStatus(400))
+        );
+
+        var now = Instant.parse("2024-12-17T15:00:00Z");
+        scheduler.refresh(now);
+
+        assertThat(endOfDayPriceDataRepository.findByTicker("AAPL").size()).isEqualTo(4);
+        assertThat(endOfDayPriceDataRepository.findByTicker("MSFT").size()).isEqualTo(1);
+
+        // The exchange is not marked as refreshed, the next poll requests only the failed ticker
+        var aaplRequests = findAll(getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("symbols", equalTo("AAPL"))).size();
+        var msftRequests = findAll(getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("symbols", equalTo("MSFT"))).size();
+        scheduler.refresh(now);
+        assertThat(findAll(getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("symbols", equalTo("AAPL"))).size())
+                .isEqualTo(aaplRequests);
+        assertThat(findAll(getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("symbols", equalTo("MSFT"))).size())
+                .isGreaterThan(msftRequests);
+    }
+
+    private void saveTicker(String symbol) {
+        var entity = new TickersEntity();
+        entity.setSymbol(symbol);
+        entity.setName(symbol);
+        entity.setHasEodPrice(true);
+        entity.setExchange("NASDAQ Stock Exchange");
+        entity.setAcronym("NASDAQ");
+        entity.setMic("XNAS");
+        entity.setCountry("USA");
+        entity.setCountryCode("US");
+        entity.setCurrency(Currency.USD);
+        tickersRepository.save(entity);
+    }
+
+    private void savePrice(String symbol, LocalDate date) {
+        var entity = new EndOfDayPriceDataEntity();
+        entity.setTicker(symbol);
+        entity.setDate(date);
+        entity.setPrice(BigDecimal.valueOf(246.49));
+        entity.setCurrency(Currency.USD);
+        endOfDayPriceDataRepository.save(entity);
+    }
+}
@@ -0,0 +1,246 @@
+package com.valyalkin.market.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.valyalkin.market.dto.JobDto;
+import com.valyalkin.market.eod.EndOfDayPriceDataRepository;
+import com.valyalkin.market.ingestion.IngestionCheckpointRepository;
+import com.valyalkin.market.utils.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.wiremock.spring.EnableWireMock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = {
+        "data.jobs.pool-size=1",
+        "data.jobs.queue-capacity=1"
+})
+@ActiveProfiles({"test", "wiremock"})
+@AutoConfigureMockMvc
+@EnableWireMock
+public class JobsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EndOfDayPriceDataRepository endOfDayPriceDataRepository;
+
+    @Autowired
+    private IngestionCheckpointRepository ingestionCheckpointRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @BeforeEach
+    public void cleanUp() {
+        endOfDayPriceDataRepository.deleteAll();
+        ingestionCheckpointRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("End of day job runs in the background and reports progress")
+    void testEndOfDayJob() throws Exception {
+
+        final var ticker = "AAPL";
+
+        Map.of(
+                "0", "marketstack/eod/eod-appl-offset-0.json",
+                "100", "marketstack/eod/eod-appl-offset-100.json",
+                "200", "marketstack/eod/eod-appl-offset-200.json"
+        ).forEach(
+                (offset, file) -> stubFor(
+                        get(
+                                urlPathMatching("/v1/eod"))
+                                .withQueryParam("access_key", equalTo("test"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withBody(TestUtils.readFileFromResources(file))
+                                )
+                )
+        );
+
+        var submitted = objectMapper.readValue(
+                mockMvc.perform(
+                        MockMvcRequestBuilders.post("/v1/jobs/eod").param("tickers", ticker)
+                ).andExpect(
+                        MockMvcResultMatchers.status().isAccepted()
+                ).andReturn().getResponse().getContentAsString(),
+                JobDto.class
+        );
+
+        assertThat(submitted.id()).isNotNull();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> isFinished(job(submitted.id())));
+        var job = job(submitted.id());
+
+        assertThat(job.status()).isEqualTo("COMPLETED");
+        assertThat(job.pagesDone()).isEqualTo(3);
+        assertThat(job.pagesTotal()).isEqualTo(3);
+        assertThat(job.rowsWritten()).isEqualTo(251);
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo(251);
+    }
+
+    @Test
+    @DisplayName("Unknown job is not found")
+    void testUnknownJob() throws Exception {
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/v1/jobs/" + UUID.randomUUID())
+        ).andExpect(
+                MockMvcResultMatchers.status().isNotFound()
+        );
+    }
+
+    @Test
+    @DisplayName("Cancelled job stops between pages")
+    void testCancelJobBetweenPages() throws Exception {
+
+        final var ticker = "AAPL";
+
+        Map.of(
+                "0", 0,
+                "100", 1000,
+                "200", 1000
+        ).forEach(
+                (offset, delay) -> stubFor(
+                        get(
+                                urlPathMatching("/v1/eod"))
+                                .withQueryParam("symbols", equalTo(ticker))
+                                .withQueryParam("offset", equalTo(offset))
+                                .willReturn(
+                                        aResponse()
+                                                .withHeader("Content-Type", "application/json")
+                                                .withStatus(200)
+                                                .withFixedDelay(delay)
+                                                .withBody(TestUtils.readFileFromResources(
+                                                        "marketstack/eod/eod-appl-offset-" + offset + ".json"
+                                                ))
+                                )
+                )
+        );
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .withQueryParam("symbols", equalTo("MSFT"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-300.json"))
+                        )
+        );
+
+        var submitted = submit(ticker);
+
+        // The first page is stored while the next ones are still on their way
+        await().atMost(Duration.ofSeconds(2)).until(() -> job(submitted.id()).pagesDone() >= 1);
+        assertThat(job(submitted.id()).pagesDone()).isEqualTo(1);
+
+        var cancelled = objectMapper.readValue(
+                mockMvc.perform(
+                        MockMvcRequestBuilders.delete("/v1/jobs/" + submitted.id())
+                ).andExpect(
+                        MockMvcResultMatchers.status().isOk()
+                ).andReturn().getResponse().getContentAsString(),
+                JobDto.class
+        );
+        assertThat(cancelled.status()).isEqualTo("CANCELLED");
+
+        // Jobs run one at a time, a job submitted now only starts once the cancelled one stopped.
+        // The page already requested may still land, nothing after it
+        var next = submit("MSFT");
+        await().atMost(Duration.ofSeconds(10)).until(() -> isFinished(job(next.id())));
+
+        var job = job(submitted.id());
+        assertThat(job.status()).isEqualTo("CANCELLED");
+        assertThat(job.pagesDone()).isLessThan(job.pagesTotal());
+        assertThat(job.rowsWritten()).isLessThan(251);
+        assertThat(endOfDayPriceDataRepository.findByTicker(ticker).size()).isEqualTo((int) job.rowsWritten());
+    }
+
+    @Test
+    @DisplayName("Full job queue is answered with 503 and Retry-After")
+    void testJobQueueFull() throws Exception {
+
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .withQueryParam("symbols", equalTo("MSFT"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withFixedDelay(1000)
+                                        .withBody(TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-300.json"))
+                        )
+        );
+
+        // One job runs and one waits in the queue
+        var running = submit("MSFT");
+        var queued = submit("MSFT");
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.post("/v1/jobs/eod").param("tickers", "MSFT")
+        ).andExpect(
+                MockMvcResultMatchers.status().isServiceUnavailable()
+        ).andExpect(
+                MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "30")
+        );
+
+        for (var job : List.of(queued, running)) {
+            mockMvc.perform(
+                    MockMvcRequestBuilders.delete("/v1/jobs/" + job.id())
+            ).andExpect(
+                    MockMvcResultMatchers.status().isOk()
+            );
+        }
+
+        // The queued job never started
+        assertThat(job(queued.id()).startedAt()).isNull();
+    }
+
+    private JobDto submit(String tickers) throws Exception {
+        return objectMapper.readValue(
+                mockMvc.perform(
+                        MockMvcRequestBuilders.post("/v1/jobs/eod").param("tickers", tickers)
+                ).andExpect(
+                        MockMvcResultMatchers.status().isAccepted()
+                ).andReturn().getResponse().getContentAsString(),
+                JobDto.class
+        );
+    }
+
+    private JobDto job(UUID id) throws Exception {
+        return objectMapper.readValue(
+                mockMvc.perform(
+                        MockMvcRequestBuilders.get("/v1/jobs/" + id)
+                ).andExpect(
+                        MockMvcResultMatchers.status().isOk()
+                ).andReturn().getResponse().getContentAsString(),
+                JobDto.class
+        );
+    }
+
+    private static boolean isFinished(JobDto job) {
+        return !job.status().equals("QUEUED") && !job.status().equals("RUNNING");
+    }
+}
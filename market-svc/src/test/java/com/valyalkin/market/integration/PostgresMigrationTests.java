@@ -0,0 +1,161 @@
+package com.valyalkin.market.integration;
+
+import com.valyalkin.market.dividends.DividendsBatchWriter;
+import com.valyalkin.market.eod.EndOfDayLatestPriceReader;
+import com.valyalkin.market.eod.EndOfDayPartitions;
+import com.valyalkin.market.eod.EndOfDayPriceBatchWriter;
+import com.valyalkin.market.providers.model.Dividend;
+import com.valyalkin.market.providers.model.EndOfDayPrice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Flyway migrations and the PostgreSQL statements against a real database. The other
+ * integration tests run on H2 without migrations.
+ */
+@SpringBootTest(properties = "data.refresh.enabled=false")
+@Testcontainers(disabledWithoutDocker = true)
+public class PostgresMigrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EndOfDayPriceBatchWriter endOfDayPriceBatchWriter;
+
+    @Autowired
+    private DividendsBatchWriter dividendsBatchWriter;
+
+    @Autowired
+    private EndOfDayLatestPriceReader endOfDayLatestPriceReader;
+
+    @Autowired
+    private EndOfDayPartitions endOfDayPartitions;
+
+    @BeforeEach
+    public void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE marketdata_schema.end_of_day, marketdata_schema.dividends");
+    }
+
+    @Test
+    @DisplayName("Migrations leave end_of_day partitioned by year without a default partition")
+    void testPartitionedTable() {
+        var partitions = jdbcTemplate.queryForList(
+                "SELECT child.relname FROM pg_inherits " +
+                        "JOIN pg_class parent ON parent.oid = pg_inherits.inhparent " +
+                        "JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+                        "WHERE parent.relname = 'end_of_day'",
+                String.class
+        );
+
+        assertThat(partitions).contains("end_of_day_2018", "end_of_day_" + (LocalDate.now(ZoneOffset.UTC).getYear() + 1));
+        assertThat(partitions).doesNotContain("end_of_day_default");
+    }
+
+    @Test
+    @DisplayName("Storing the same prices twice upserts on (ticker, date)")
+    void testEndOfDayUpsert() {
+        endOfDayPriceBatchWriter.write("AAPL", List.of(
+                price("AAPL", LocalDate.of(2024, 12, 13), "248.13"),
+                price("AAPL", LocalDate.of(2024, 12, 16), "251.04")
+        ));
+        endOfDayPriceBatchWriter.write("AAPL", List.of(
+                price("AAPL", LocalDate.of(2024, 12, 16), "252.00")
+        ));
+
+        assertThat(count("end_of_day")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT price FROM marketdata_schema.end_of_day WHERE ticker = 'AAPL' AND date = '2024-12-16'",
+                BigDecimal.class
+        )).isEqualByComparingTo(new BigDecimal("252.00"));
+    }
+
+    @Test
+    @DisplayName("Storing the same dividends twice upserts on (ticker, record_date)")
+    void testDividendsUpsert() {
+        dividendsBatchWriter.write(List.of(new Dividend(LocalDate.of(2024, 11, 8), new BigDecimal("0.25"), "AAPL")));
+        dividendsBatchWriter.write(List.of(new Dividend(LocalDate.of(2024, 11, 8), new BigDecimal("0.26"), "AAPL")));
+
+        assertThat(count("dividends")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT dividend FROM marketdata_schema.dividends WHERE ticker = 'AAPL'",
+                BigDecimal.class
+        )).isEqualByComparingTo(new BigDecimal("0.26"));
+    }
+
+    @Test
+    @DisplayName("Latest prices of several tickers are read across partitions")
+    void testLatestPrices() {
+        endOfDayPriceBatchWriter.write("AAPL", List.of(
+                price("AAPL", LocalDate.of(2023, 12, 29), "192.53"),
+                price("AAPL", LocalDate.of(2024, 12, 16), "251.04")
+        ));
+        endOfDayPriceBatchWriter.write("MSFT", List.of(
+                price("MSFT", LocalDate.of(2023, 12, 29), "376.04")
+        ));
+
+        var latest = endOfDayLatestPriceReader.latestPrices(List.of("AAPL", "MSFT", "NONE"));
+
+        assertThat(latest).hasSize(2);
+        latest.forEach((price) -> {
+            switch (price.ticker()) {
+                case "AAPL" -> {
+                    assertThat(price.latestDate()).isEqualTo(LocalDate.of(2024, 12, 16));
+                    assertThat(price.price()).isEqualByComparingTo(new BigDecimal("251.04"));
+                }
+                case "MSFT" -> {
+                    assertThat(price.latestDate()).isEqualTo(LocalDate.of(2023, 12, 29));
+                    assertThat(price.price()).isEqualByComparingTo(new BigDecimal("376.04"));
+                }
+                default -> throw new AssertionError("Unexpected ticker " + price.ticker());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Prices older than date-from are stored once their partition was created")
+    void testPartitionBeforeDateFrom() {
+        var prices = List.of(price("AAPL", LocalDate.of(2009, 6, 1), "4.37"));
+
+        // No default partition catches the row
+        assertThatThrownBy(() -> endOfDayPriceBatchWriter.write("AAPL", prices))
+                .isInstanceOf(DataAccessException.class);
+
+        endOfDayPartitions.ensurePartitions(prices);
+        endOfDayPriceBatchWriter.write("AAPL", prices);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM marketdata_schema.end_of_day_2009",
+                Integer.class
+        )).isEqualTo(1);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM marketdata_schema." + table, Integer.class);
+    }
+
+    private static EndOfDayPrice price(String ticker, LocalDate date, String close) {
+        return new EndOfDayPrice(new BigDecimal(close), ticker, "XNAS", date);
+    }
+}
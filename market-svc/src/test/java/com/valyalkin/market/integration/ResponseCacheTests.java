@@ -0,0 +1,199 @@
+package com.valyalkin.market.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.valyalkin.market.providers.AsyncMarketDataProvider;
+import com.valyalkin.market.providers.MarketDataProvider;
+import com.valyalkin.market.utils.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+import org.wiremock.spring.EnableWireMock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "data.marketstack.cache.enabled=true",
+        "data.marketstack.cache.directory=build/test-marketstack-cache"
+})
+@ActiveProfiles({"test", "wiremock"})
+@EnableWireMock
+public class ResponseCacheTests {
+
+    @Autowired
+    private MarketDataProvider marketDataProvider;
+
+    @Autowired
+    private AsyncMarketDataProvider asyncMarketDataProvider;
+
+    @BeforeEach
+    public void cleanUp() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of("build/test-marketstack-cache"));
+    }
+
+    @Test
+    @DisplayName("Ticker data is served from disk")
+    void testTickerDataServedFromDisk() {
+
+        stubFor(
+                get(urlPathMatching("/v1/tickers/AAPL"))
+                        .withQueryParam("access_key", equalTo("test"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withBody("""
+                                                {
+                                                  "name": "Apple Inc",
+                                                  "symbol": "AAPL",
+                                                  "has_intraday": false,
+                                                  "has_eod": true,
+                                                  "country": null,
+                                                  "stock_exchange": {
+                                                    "name": "NASDAQ Stock Exchange",
+                                                    "acronym": "NASDAQ",
+                                                    "mic": "XNAS",
+                                                    "country": "USA",
+                                                    "country_code": "US",
+                                                    "city": "New York",
+                                                    "website": "WWW.NASDAQ.COM"
+                                                  }
+                                                }
+                                                """)
+                        )
+        );
+
+        var first = marketDataProvider.tickerData("AAPL");
+        var second = marketDataProvider.tickerData("AAPL");
+
+        assertThat(second).isEqualTo(first);
+        verify(1, getRequestedFor(urlPathMatching("/v1/tickers/AAPL")));
+    }
+
+    @Test
+    @DisplayName("Error responses are not cached")
+    void testErrorsAreNotCached() {
+
+        stubFor(
+                get(urlPathMatching("/v1/tickers/NOPE"))
+                        .willReturn(aResponse().withStatus(404).withBody("{}"))
+        );
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                marketDataProvider.tickerData("NOPE");
+            } catch (RuntimeException e) {
+                // Expected, the ticker does not exist
+            }
+        }
+
+        verify(2, getRequestedFor(urlPathMatching("/v1/tickers/NOPE")));
+    }
+
+    @Test
+    @DisplayName("Full oldest first pages in the past are replayed from disk as history")
+    void testEndOfDayPagesReplayedFromDisk() throws IOException {
+
+        stubEndOfDayPage("0", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0.json"));
+        stubEndOfDayPage("100", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100.json"));
+
+        var dateFrom = LocalDate.of(2023, 12, 18);
+
+        var first = marketDataProvider.endOfDayData(List.of("AAPL"), dateFrom, 0);
+        var second = marketDataProvider.endOfDayData(List.of("AAPL"), dateFrom, 0);
+        assertThat(second).isEqualTo(first);
+
+        // Pages fetched ahead without blocking share the cache
+        var prefetched = asyncMarketDataProvider.endOfDayData(List.of("AAPL"), dateFrom, 100).join();
+        var replayed = marketDataProvider.endOfDayData(List.of("AAPL"), dateFrom, 100);
+        assertThat(replayed).isEqualTo(prefetched);
+
+        verify(1, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("0")));
+        verify(1, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("100")));
+
+        // Both pages are full and every row is older than today, the pages are kept as history
+        assertThat(cachedFiles(".history.json")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Newest first pages are not replayed across a growing series")
+    void testOpenEndedPagesAfterSeriesGrew() throws IOException {
+
+        var firstPage = TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-0.json");
+        stubEndOfDayPage("0", firstPage);
+        stubEndOfDayPage("100", TestUtils.readFileFromResources("marketstack/eod/eod-appl-offset-100.json"));
+
+        var dateFrom = LocalDate.of(2023, 12, 18);
+
+        var cachedFirst = marketDataProvider.endOfDayData("AAPL", dateFrom, 0);
+        marketDataProvider.endOfDayData("AAPL", dateFrom, 100);
+
+        // A new day is published, every row moves one offset further
+        stubEndOfDayPage("100", grownPage(firstPage, TestUtils.readFileFromResources(
+                "marketstack/eod/eod-appl-offset-100.json"
+        )));
+
+        var replayedFirst = marketDataProvider.endOfDayData("AAPL", dateFrom, 0);
+        var second = marketDataProvider.endOfDayData("AAPL", dateFrom, 100);
+
+        // The first page of today is replayed, the deeper page is fetched again
+        assertThat(replayedFirst).isEqualTo(cachedFirst);
+        verify(1, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("0")));
+        verify(2, getRequestedFor(urlPathMatching("/v1/eod")).withQueryParam("offset", equalTo("100")));
+
+        // The fresh page repeats the last row of the replayed one instead of skipping a day
+        var lastReplayed = replayedFirst.eod().get(replayedFirst.eod().size() - 1);
+        assertThat(second.eod().get(0).date()).isEqualTo(lastReplayed.date());
+
+        // Only the first page is on disk, and not as history
+        assertThat(cachedFiles(".json")).isEqualTo(1);
+        assertThat(cachedFiles(".history.json")).isEqualTo(0);
+    }
+
+    private static void stubEndOfDayPage(String offset, String body) {
+        stubFor(
+                get(urlPathMatching("/v1/eod"))
+                        .withQueryParam("symbols", equalTo("AAPL"))
+                        .withQueryParam("offset", equalTo(offset))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withBody(body)
+                        )
+        );
+    }
+
+    /**
+     * The second page of the series once one more day is published: the last row of the first page
+     * moves to its top and its own last row moves on to the next page.
+     */
+    private static String grownPage(String firstPage, String secondPage) throws IOException {
+        var mapper = new ObjectMapper();
+        var first = (ArrayNode) mapper.readTree(firstPage).get("data");
+        var page = (ObjectNode) mapper.readTree(secondPage);
+        var data = (ArrayNode) page.get("data");
+        data.insert(0, first.get(first.size() - 1));
+        data.remove(data.size() - 1);
+        ((ObjectNode) page.get("pagination")).put("total", page.get("pagination").get("total").asInt() + 1);
+        return mapper.writeValueAsString(page);
+    }
+
+    private static long cachedFiles(String suffix) throws IOException {
+        try (var files = Files.list(Path.of("build/test-marketstack-cache"))) {
+            return files.filter((file) -> file.getFileName().toString().endsWith(suffix)).count();
+        }
+    }
+}
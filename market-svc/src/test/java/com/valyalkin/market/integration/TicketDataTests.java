@@ -3,6 +3,7 @@ package com.valyalkin.market.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valyalkin.market.eod.Currency;
 import com.valyalkin.market.providers.model.TickerDto;
+import com.valyalkin.market.ticker.TickerService;
 import com.valyalkin.market.ticker.TickersEntity;
 import com.valyalkin.market.ticker.TickersRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +20,9 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.client.RestClient;
 import org.wiremock.spring.EnableWireMock;
 
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -34,6 +38,9 @@ public class TicketDataTests {
     @Autowired
     private TickersRepository tickersRepository;
 
+    @Autowired
+    private TickerService tickerService;
+
 
     @BeforeEach
     public void cleanUp() {
@@ -151,4 +158,51 @@ public class TicketDataTests {
         assertThat(t.countryCode()).isEqualTo(countryCode);
 
     }
+
+    @Test
+    @DisplayName("Concurrent lookups of a new ticker call the provider once")
+    void testConcurrentLookupsCoalesced() throws Exception {
+
+        stubFor(
+                get(urlPathMatching("/v1/tickers/MSFT"))
+                        .withQueryParam("access_key", equalTo("test"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json")
+                                        .withStatus(200)
+                                        .withFixedDelay(500)
+                                        .withBody("""
+                                                {
+                                                  "name": "Microsoft Corp",
+                                                  "symbol": "MSFT",
+                                                  "has_intraday": false,
+                                                  "has_eod": true,
+                                                  "country": null,
+                                                  "stock_exchange": {
+                                                    "name": "NASDAQ Stock Exchange",
+                                                    "acronym": "NASDAQ",
+                                                    "mic": "XNAS",
+                                                    "country": "USA",
+                                                    "country_code": "US",
+                                                    "city": "New York",
+                                                    "website": "WWW.NASDAQ.COM"
+                                                  }
+                                                }
+                                                """)
+                        )
+        );
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var lookups = IntStream.range(0, 4)
+                    .mapToObj((i) -> executor.submit(() -> tickerService.getTickerData("MSFT")))
+                    .toList();
+
+            for (var lookup : lookups) {
+                assertThat(lookup.get().name()).isEqualTo("Microsoft Corp");
+            }
+        }
+
+        verify(1, getRequestedFor(urlPathMatching("/v1/tickers/MSFT")));
+        assertThat(tickersRepository.findAll().size()).isEqualTo(1);
+    }
 }
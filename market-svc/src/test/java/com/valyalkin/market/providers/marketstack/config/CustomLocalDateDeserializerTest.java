@@ -0,0 +1,64 @@
+package com.valyalkin.market.providers.marketstack.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CustomLocalDateDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(
+            new SimpleModule().addDeserializer(LocalDate.class, new CustomLocalDateDeserializer())
+    );
+
+    @Test
+    @DisplayName("Plain date is read")
+    void testPlainDate() throws IOException {
+        assertThat(read("2024-12-16")).isEqualTo(LocalDate.of(2024, 12, 16));
+    }
+
+    @Test
+    @DisplayName("Date of a full timestamp is read")
+    void testTimestamp() throws IOException {
+        assertThat(read("2024-12-16T00:00:00+0000")).isEqualTo(LocalDate.of(2024, 12, 16));
+        assertThat(read("2024-02-29T23:59:59-0500")).isEqualTo(LocalDate.of(2024, 2, 29));
+    }
+
+    @Test
+    @DisplayName("Trailing junk after the date is rejected")
+    void testTrailingJunk() {
+        assertThatThrownBy(() -> read("2024-12-16junk")).isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> read("2024-12-16T00:00:00+0000junk")).isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> read("2024-12-16Txx:00:00+0000")).isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> read("2024-12-16T25:00:00+0000")).isInstanceOf(InvalidFormatException.class);
+    }
+
+    @Test
+    @DisplayName("Out of range month or day is rejected")
+    void testInvalidDay() {
+        assertThatThrownBy(() -> read("2024-02-30")).isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> read("2024-13-01T00:00:00+0000")).isInstanceOf(InvalidFormatException.class);
+    }
+
+    @Test
+    @DisplayName("Invalid date is rejected outside of a mapper")
+    void testInvalidDayWithoutContext() throws IOException {
+        try (var parser = new JsonFactory().createParser("\"2024-04-31T00:00:00+0000\"")) {
+            parser.nextToken();
+            assertThatThrownBy(() -> new CustomLocalDateDeserializer().deserialize(parser, null))
+                    .isInstanceOf(InvalidFormatException.class);
+        }
+    }
+
+    private LocalDate read(String text) throws IOException {
+        return objectMapper.readValue("\"" + text + "\"", LocalDate.class);
+    }
+}
@@ -2,7 +2,9 @@ package com.valyalkin.portfolio.market
 
 import com.valyalkin.portfolio.configuration.exception.SystemException
 import org.springframework.beans.factory.annotation.Value
+import org.springframework.core.ParameterizedTypeReference
 import org.springframework.http.HttpStatusCode
+import org.springframework.http.MediaType
 import org.springframework.stereotype.Service
 import org.springframework.web.client.RestClient
 import org.springframework.web.util.UriComponentsBuilder
@@ -16,7 +18,7 @@ class MarketDataGateway(
     @Value("\${dependencies.market.url}") private val marketSvcUrl: String,
 ) {
     private val tickerDataPath = "v1/ticker"
-    private val latestPricePath = "v1/eod/latest-price"
+    private val latestPricesPath = "v1/eod/latest-prices"
 
     fun tickerData(ticker: String): TickerData {
         val url =
@@ -36,22 +38,25 @@ class MarketDataGateway(
             }.body(TickerData::class.java) ?: throw SystemException("Not able to fetch the data from market svc")
     }
 
-    fun latestPrice(ticker: String): LatestPrice {
+    fun latestPrices(tickers: List<String>): List<LatestPrice> {
         val url =
             UriComponentsBuilder
-                .fromUriString("$marketSvcUrl/$latestPricePath/$ticker")
+                .fromUriString("$marketSvcUrl/$latestPricesPath")
                 .toUriString()
 
         return restClient
-            .get()
+            .post()
             .uri(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(tickers)
             .retrieve()
             .onStatus(HttpStatusCode::isError) { _, response ->
                 throw SystemException(
                     "Market service api call failed with error ${response.statusCode.value()}," +
                         " Details: ${response.body.readAllBytes().toString(Charset.defaultCharset())}",
                 )
-            }.body(LatestPrice::class.java) ?: throw SystemException("Not able to fetch the data from market svc")
+            }.body(object : ParameterizedTypeReference<List<LatestPrice>>() {})
+            ?: throw SystemException("Not able to fetch the data from market svc")
     }
 }
 
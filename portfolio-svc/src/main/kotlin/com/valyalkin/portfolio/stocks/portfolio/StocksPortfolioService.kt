@@ -1,5 +1,6 @@
 package com.valyalkin.portfolio.stocks.portfolio
 
+import com.valyalkin.portfolio.configuration.exception.SystemException
 import com.valyalkin.portfolio.market.MarketDataGateway
 import com.valyalkin.portfolio.stocks.holdings.StockHoldingsService
 import org.springframework.stereotype.Service
@@ -15,9 +16,20 @@ class StocksPortfolioService(
     fun getPortfolio(userId: String): StocksPortfolio {
         val holdings = stockHoldingsService.stockHoldings(userId = userId)
 
+        val latestPrices =
+            if (holdings.isEmpty()) {
+                emptyMap()
+            } else {
+                marketDataGateway
+                    .latestPrices(holdings.map { it.ticker }.distinct())
+                    .associateBy { it.ticker }
+            }
+
         val overview =
             holdings.map { holding ->
-                val lastPrice = marketDataGateway.latestPrice(holding.ticker)
+                val lastPrice =
+                    latestPrices[holding.ticker]
+                        ?: throw SystemException("No price found for ticker ${holding.ticker}")
                 val value = holding.averagePrice.multiply(BigDecimal.valueOf(holding.quantity))
                 val marketValue = lastPrice.price.multiply(BigDecimal.valueOf(holding.quantity))
 
@@ -0,0 +1,148 @@
+package com.valyalkin.portfolio.market
+
+import com.valyalkin.portfolio.configuration.exception.SystemException
+import com.valyalkin.portfolio.stocks.holdings.StockHoldingEntity
+import com.valyalkin.portfolio.stocks.holdings.StockHoldingsService
+import com.valyalkin.portfolio.stocks.portfolio.StocksPortfolioService
+import com.valyalkin.portfolio.stocks.transactions.Currency
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito
+import org.springframework.http.HttpMethod
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.test.web.client.MockRestServiceServer
+import org.springframework.test.web.client.match.MockRestRequestMatchers.content
+import org.springframework.test.web.client.match.MockRestRequestMatchers.method
+import org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo
+import org.springframework.test.web.client.response.MockRestResponseCreators.withStatus
+import org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess
+import org.springframework.web.client.RestClient
+import java.math.BigDecimal
+import java.time.LocalDate
+
+class MarketDataGatewayTest {
+    private val marketSvcUrl = "http://market-svc"
+    private val latestPricesUrl = "$marketSvcUrl/v1/eod/latest-prices"
+    private val testUserId = "test"
+
+    private val restClientBuilder = RestClient.builder()
+    private val server = MockRestServiceServer.bindTo(restClientBuilder).build()
+    private val marketDataGateway = MarketDataGateway(restClientBuilder.build(), marketSvcUrl)
+
+    private val stockHoldingsService = Mockito.mock(StockHoldingsService::class.java)
+    private val stocksPortfolioService = StocksPortfolioService(stockHoldingsService, marketDataGateway)
+
+    private fun holding(
+        ticker: String,
+        quantity: Long,
+        averagePrice: BigDecimal,
+    ) = StockHoldingEntity(
+        userId = testUserId,
+        ticker = ticker,
+        quantity = quantity,
+        averagePrice = averagePrice,
+        currency = Currency.USD,
+    )
+
+    @Test
+    fun `Latest prices - Should post the tickers as a JSON array and read the prices`() {
+        server
+            .expect(requestTo(latestPricesUrl))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(content().json("""["AAPL","MSFT"]""", true))
+            .andRespond(
+                withSuccess(
+                    """
+                    [
+                      {"ticker": "AAPL", "latestDate": "2024-12-16", "price": 251.04},
+                      {"ticker": "MSFT", "latestDate": "2024-12-13", "price": 447.27}
+                    ]
+                    """.trimIndent(),
+                    MediaType.APPLICATION_JSON,
+                ),
+            )
+
+        val latestPrices = marketDataGateway.latestPrices(listOf("AAPL", "MSFT"))
+
+        server.verify()
+        assertThat(latestPrices).containsExactly(
+            LatestPrice("AAPL", LocalDate.of(2024, 12, 16), BigDecimal("251.04")),
+            LatestPrice("MSFT", LocalDate.of(2024, 12, 13), BigDecimal("447.27")),
+        )
+    }
+
+    @Test
+    fun `Portfolio - Should request every ticker once and price each holding with its own ticker`() {
+        Mockito.`when`(stockHoldingsService.stockHoldings(testUserId)).thenReturn(
+            listOf(
+                holding("MSFT", 2, BigDecimal.valueOf(400)),
+                holding("AAPL", 10, BigDecimal.valueOf(200)),
+            ),
+        )
+
+        // Returned in another order than the holdings
+        server
+            .expect(requestTo(latestPricesUrl))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(content().json("""["MSFT","AAPL"]""", true))
+            .andRespond(
+                withSuccess(
+                    """
+                    [
+                      {"ticker": "AAPL", "latestDate": "2024-12-16", "price": 250},
+                      {"ticker": "MSFT", "latestDate": "2024-12-13", "price": 450}
+                    ]
+                    """.trimIndent(),
+                    MediaType.APPLICATION_JSON,
+                ),
+            )
+
+        val portfolio = stocksPortfolioService.getPortfolio(testUserId)
+
+        server.verify()
+        assertThat(portfolio.data).hasSize(2)
+
+        portfolio.data[0].let {
+            assertThat(it.ticker).isEqualTo("MSFT")
+            assertThat(it.lastPrice).isEqualByComparingTo(BigDecimal.valueOf(450))
+            assertThat(it.totalGain).isEqualByComparingTo(BigDecimal.valueOf(100))
+            assertThat(it.asOf).isEqualTo(LocalDate.of(2024, 12, 13))
+        }
+        portfolio.data[1].let {
+            assertThat(it.ticker).isEqualTo("AAPL")
+            assertThat(it.lastPrice).isEqualByComparingTo(BigDecimal.valueOf(250))
+            assertThat(it.totalGain).isEqualByComparingTo(BigDecimal.valueOf(500))
+            assertThat(it.totalGainPercentage).isEqualByComparingTo(BigDecimal.valueOf(25))
+            assertThat(it.asOf).isEqualTo(LocalDate.of(2024, 12, 16))
+        }
+    }
+
+    @Test
+    fun `Portfolio - Should fail if a held ticker has no price`() {
+        Mockito.`when`(stockHoldingsService.stockHoldings(testUserId)).thenReturn(
+            listOf(holding("AAPL", 10, BigDecimal.valueOf(200))),
+        )
+
+        server
+            .expect(requestTo(latestPricesUrl))
+            .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON))
+
+        assertThatThrownBy { stocksPortfolioService.getPortfolio(testUserId) }
+            .isInstanceOf(SystemException::class.java)
+            .hasMessageContaining("AAPL")
+    }
+
+    @Test
+    fun `Latest prices - Should fail if market svc answers with an error`() {
+        server
+            .expect(requestTo(latestPricesUrl))
+            .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR).body("{}"))
+
+        assertThatThrownBy { marketDataGateway.latestPrices(listOf("AAPL")) }
+            .isInstanceOf(SystemException::class.java)
+            .hasMessageContaining("500")
+    }
+}